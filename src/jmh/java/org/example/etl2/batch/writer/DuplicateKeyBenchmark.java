@@ -0,0 +1,74 @@
+package org.example.etl2.batch.writer;
+
+import org.example.etl2.model.TemperatureReading;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds repeated readings within a chunk the way {@link DeduplicatingItemWriter} does,
+ * packing station id and datetime into a {@code long} kept in a {@link LongHashSet},
+ * compared with a {@link HashSet} of the readings themselves. It lives in the writer's
+ * package to call the package-private {@link DeduplicatingItemWriter#key}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DuplicateKeyBenchmark {
+
+    private static final int RECORDS = 1000;
+    private static final int STATIONS = 200;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private TemperatureReading[] readings;
+    private int[] stationIds;
+
+    @Setup
+    public void setUp() {
+        readings = new TemperatureReading[RECORDS];
+        stationIds = new int[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            readings[i] = new TemperatureReading("Station-" + i % STATIONS, START.plusMinutes(i * 10L),
+                    BigDecimal.valueOf((i * 37) % 800 - 300, 1));
+            stationIds[i] = 1 + i % STATIONS;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void packedKey(Blackhole blackhole) {
+        for (int i = 0; i < RECORDS; i++) {
+            blackhole.consume(DeduplicatingItemWriter.key(stationIds[i], readings[i].datetime()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void packedKeySet(Blackhole blackhole) {
+        LongHashSet keys = new LongHashSet(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            blackhole.consume(keys.add(DeduplicatingItemWriter.key(stationIds[i], readings[i].datetime())));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void readingSet(Blackhole blackhole) {
+        Set<TemperatureReading> keys = new HashSet<>(RECORDS * 2);
+        for (TemperatureReading reading : readings) {
+            blackhole.consume(keys.add(reading));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.etl2.benchmark;
+
+import org.example.etl2.model.TemperatureReading;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Generates deterministic sensor rows shaped like the production feeds.
+ */
+final class CsvData {
+
+    static final String HEADER = "name,datetime,temp";
+    static final int STATIONS = 200;
+
+    private CsvData() {
+    }
+
+    static String[] tokens(int index) {
+        int minutes = index * 10;
+        String datetime = String.format(Locale.ROOT, "2024-%02d-%02dT%02d:%02d:00",
+                1 + (minutes / (60 * 24 * 28)) % 12, 1 + (minutes / (60 * 24)) % 28, (minutes / 60) % 24, minutes % 60);
+        String temp = String.format(Locale.ROOT, "%.1f", ((index * 37) % 800 - 300) / 10.0);
+        return new String[]{"Station-" + (index % STATIONS), datetime, temp};
+    }
+
+    static String line(int index) {
+        return String.join(",", tokens(index));
+    }
+
+    static TemperatureReading reading(int index) {
+        String[] tokens = tokens(index);
+        return new TemperatureReading(tokens[0], LocalDateTime.parse(tokens[1]), new BigDecimal(tokens[2]));
+    }
+
+    static TemperatureReading[] readings(int count) {
+        TemperatureReading[] readings = new TemperatureReading[count];
+        for (int i = 0; i < count; i++) {
+            readings[i] = reading(i);
+        }
+        return readings;
+    }
+}
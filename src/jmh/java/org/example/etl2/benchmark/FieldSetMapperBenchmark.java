@@ -0,0 +1,65 @@
+package org.example.etl2.benchmark;
+
+import org.example.etl2.batch.reader.TemperatureReadingFieldSetMapper;
+import org.example.etl2.model.TemperatureReading;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.infrastructure.item.file.mapping.FieldSetMapper;
+import org.springframework.batch.infrastructure.item.file.transform.DefaultFieldSet;
+import org.springframework.batch.infrastructure.item.file.transform.FieldSet;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link TemperatureReadingFieldSetMapper} with the previous implementation
+ * based on {@link LocalDateTime#parse} and {@link FieldSet#readBigDecimal(String)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FieldSetMapperBenchmark {
+
+    private static final int RECORDS = 1024;
+    private static final String[] NAMES = {"name", "datetime", "temp"};
+
+    private final FieldSetMapper<TemperatureReading> mapper = new TemperatureReadingFieldSetMapper();
+    private final FieldSetMapper<TemperatureReading> previousMapper = fieldSet -> new TemperatureReading(
+            fieldSet.readString("name"),
+            LocalDateTime.parse(fieldSet.readString("datetime"), DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+            fieldSet.readBigDecimal("temp"));
+
+    private FieldSet[] fieldSets;
+
+    @Setup
+    public void setUp() {
+        fieldSets = new FieldSet[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            fieldSets[i] = new DefaultFieldSet(CsvData.tokens(i), NAMES);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void fastPathMapper(Blackhole blackhole) throws Exception {
+        for (FieldSet fieldSet : fieldSets) {
+            blackhole.consume(mapper.mapFieldSet(fieldSet));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void previousMapper(Blackhole blackhole) throws Exception {
+        for (FieldSet fieldSet : fieldSets) {
+            blackhole.consume(previousMapper.mapFieldSet(fieldSet));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.etl2.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.etl2.batch.listener.DuplicateLogWriter;
+import org.example.etl2.batch.listener.ImportMetrics;
+import org.example.etl2.batch.listener.JobCompletionListener;
+import org.example.etl2.batch.writer.DuplicateReporter;
+import org.example.etl2.batch.writer.InsertIgnoreBatchItemWriter;
+import org.example.etl2.batch.writer.KeySortingItemWriter;
+import org.example.etl2.batch.writer.StationDictionary;
+import org.example.etl2.model.TemperatureReading;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.infrastructure.item.ItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes chunks with {@link InsertIgnoreBatchItemWriter} into an in-memory H2 database
+ * in MySQL mode, so the writer's own cost, station lookup and parameter binding, can be
+ * compared offline. The absolute numbers say little about MySQL.
+ * <p>
+ * Every chunk holds new rows, so no duplicates are reported; the table is emptied
+ * before every iteration. The rows of a chunk interleave the stations, and
+ * {@code sortByKey} measures what {@link KeySortingItemWriter} adds to or saves of the
+ * write; lock contention between parallel writers is only seen on MySQL, with
+ * {@code ImportThroughputTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InsertWriterBenchmark {
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Param({"false", "true"})
+    public boolean sortByKey;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private ItemWriter<TemperatureReading> writer;
+    private long nextRow;
+    private Chunk<TemperatureReading> chunk;
+
+    @Setup
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+                CREATE TABLE station (
+                    id INT AUTO_INCREMENT PRIMARY KEY,
+                    name VARCHAR(255) NOT NULL UNIQUE
+                )""");
+        jdbcTemplate.execute("""
+                CREATE TABLE temperature_data (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    station_id INT NOT NULL,
+                    datetime DATETIME NOT NULL,
+                    temp DECIMAL(5,1) NOT NULL,
+                    UNIQUE (station_id, datetime)
+                )""");
+
+        var duplicateLogWriter = new DuplicateLogWriter(8192, DataSize.ofKilobytes(64), Duration.ofSeconds(1));
+        var duplicateReporter = new DuplicateReporter(duplicateLogWriter, new JobCompletionListener(duplicateLogWriter),
+                new ImportMetrics(new SimpleMeterRegistry(), 64, Duration.ZERO));
+        var stationDictionary = new StationDictionary(jdbcTemplate, new DataSourceTransactionManager(dataSource));
+        writer = new InsertIgnoreBatchItemWriter(jdbcTemplate, stationDictionary, duplicateReporter);
+        if (sortByKey) {
+            writer = new KeySortingItemWriter(writer);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyTable() {
+        jdbcTemplate.execute("TRUNCATE TABLE temperature_data");
+    }
+
+    @Setup(Level.Invocation)
+    public void nextChunk() {
+        List<TemperatureReading> rows = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < CHUNK_SIZE; i++, nextRow++) {
+            rows.add(new TemperatureReading("Station-" + nextRow % CsvData.STATIONS,
+                    START.plusMinutes(nextRow / CsvData.STATIONS),
+                    BigDecimal.valueOf(nextRow % 800 - 300, 1)));
+        }
+        chunk = new Chunk<>(rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public void insertIgnoreBatch() throws Exception {
+        writer.write(chunk);
+    }
+}
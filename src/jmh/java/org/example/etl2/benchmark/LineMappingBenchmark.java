@@ -0,0 +1,79 @@
+package org.example.etl2.benchmark;
+
+import org.example.etl2.batch.reader.TemperatureByteLineMapper;
+import org.example.etl2.batch.reader.TemperatureReadingFieldSetMapper;
+import org.example.etl2.model.TemperatureReading;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.infrastructure.item.file.mapping.DefaultLineMapper;
+import org.springframework.batch.infrastructure.item.file.transform.DelimitedLineTokenizer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns CSV lines into readings the way the readers do: tokenising alone, tokenising
+ * and mapping through the {@code flat-file} reader's line mapper, and mapping bytes
+ * with the {@code byte-buffer} reader's {@link TemperatureByteLineMapper}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LineMappingBenchmark {
+
+    private static final int RECORDS = 1024;
+
+    private final DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer(",");
+    private final DefaultLineMapper<TemperatureReading> lineMapper = new DefaultLineMapper<>();
+    private TemperatureByteLineMapper byteLineMapper;
+
+    private String[] lines;
+    private byte[][] lineBytes;
+
+    @Setup
+    public void setUp() {
+        tokenizer.setNames("name", "datetime", "temp");
+        lineMapper.setLineTokenizer(tokenizer);
+        lineMapper.setFieldSetMapper(new TemperatureReadingFieldSetMapper());
+        byteLineMapper = new TemperatureByteLineMapper(lineMapper);
+
+        lines = new String[RECORDS];
+        lineBytes = new byte[RECORDS][];
+        for (int i = 0; i < RECORDS; i++) {
+            lines[i] = CsvData.line(i);
+            lineBytes[i] = lines[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void tokenize(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(tokenizer.tokenize(line));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void lineMapper(Blackhole blackhole) throws Exception {
+        for (int i = 0; i < RECORDS; i++) {
+            blackhole.consume(lineMapper.mapLine(lines[i], i + 2));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void byteLineMapper(Blackhole blackhole) throws Exception {
+        for (int i = 0; i < RECORDS; i++) {
+            byte[] line = lineBytes[i];
+            blackhole.consume(byteLineMapper.mapLine(line, line.length, i + 2));
+        }
+    }
+}
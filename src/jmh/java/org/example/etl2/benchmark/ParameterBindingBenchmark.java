@@ -0,0 +1,99 @@
+package org.example.etl2.benchmark;
+
+import org.example.etl2.model.TemperatureReading;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binds the parameters of a row to a prepared {@code INSERT} of an in-memory H2
+ * database and adds it to the statement's batch, without executing it: by index as the
+ * writers do, and through a {@link SqlParameterSource} per row as a named parameter
+ * batch writer would. The batch is cleared after every invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParameterBindingBenchmark {
+
+    private static final int RECORDS = 1000;
+    private static final String INDEXED_SQL =
+            "INSERT IGNORE INTO temperature_data (station_id, datetime, temp) VALUES (?, ?, ?)";
+    private static final ParsedSql NAMED_SQL = NamedParameterUtils.parseSqlStatement(
+            "INSERT IGNORE INTO temperature_data (station_id, datetime, temp) VALUES (:stationId, :datetime, :temp)");
+
+    private TemperatureReading[] readings;
+    private Connection connection;
+    private PreparedStatement statement;
+
+    @Setup
+    public void setUp() throws SQLException {
+        readings = CsvData.readings(RECORDS);
+        connection = DriverManager.getConnection("jdbc:h2:mem:binding;MODE=MySQL");
+        try (var create = connection.createStatement()) {
+            create.execute("""
+                    CREATE TABLE temperature_data (
+                        station_id INT NOT NULL,
+                        datetime DATETIME NOT NULL,
+                        temp DECIMAL(5,1) NOT NULL
+                    )""");
+        }
+        statement = connection.prepareStatement(INDEXED_SQL);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        statement.close();
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void indexedValues() throws SQLException {
+        for (int i = 0; i < RECORDS; i++) {
+            TemperatureReading reading = readings[i];
+            statement.setInt(1, 1 + i % CsvData.STATIONS);
+            statement.setTimestamp(2, Timestamp.valueOf(reading.datetime()));
+            statement.setBigDecimal(3, reading.temp());
+            statement.addBatch();
+        }
+        statement.clearBatch();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void namedParameterSource() throws SQLException {
+        for (int i = 0; i < RECORDS; i++) {
+            TemperatureReading reading = readings[i];
+            SqlParameterSource source = new MapSqlParameterSource()
+                    .addValue("stationId", 1 + i % CsvData.STATIONS)
+                    .addValue("datetime", reading.datetime())
+                    .addValue("temp", reading.temp());
+            Object[] values = NamedParameterUtils.buildValueArray(NAMED_SQL, source, null);
+            for (int j = 0; j < values.length; j++) {
+                StatementCreatorUtils.setParameterValue(statement, j + 1, SqlTypeValue.TYPE_UNKNOWN, values[j]);
+            }
+            statement.addBatch();
+        }
+        statement.clearBatch();
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.etl2.benchmark;
+
+import org.example.etl2.batch.processor.TemperatureItemProcessor;
+import org.example.etl2.model.TemperatureReading;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates readings with {@link TemperatureItemProcessor}, with the default rules and
+ * with station ranges and the rate of change check enabled. All readings are valid, so
+ * the cost of the checks is measured rather than that of exceptions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidationBenchmark {
+
+    private static final int RECORDS = 1024;
+
+    private TemperatureItemProcessor defaultRules;
+    private TemperatureItemProcessor allRules;
+    private TemperatureReading[] readings;
+
+    @Setup
+    public void setUp() {
+        defaultRules = new TemperatureItemProcessor(new BigDecimal("-90.0"), new BigDecimal("60.0"), "",
+                "1900-01-01T00:00:00", Duration.ofDays(1), BigDecimal.ZERO);
+        allRules = new TemperatureItemProcessor(new BigDecimal("-90.0"), new BigDecimal("60.0"),
+                "Station-0=-50..55,Station-1=-40..50", "1900-01-01T00:00:00", Duration.ofDays(1),
+                new BigDecimal("1000"));
+        readings = CsvData.readings(RECORDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void defaultRules(Blackhole blackhole) throws Exception {
+        for (TemperatureReading reading : readings) {
+            blackhole.consume(defaultRules.process(reading));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void stationRangesAndRateOfChange(Blackhole blackhole) throws Exception {
+        for (TemperatureReading reading : readings) {
+            blackhole.consume(allRules.process(reading));
+        }
+    }
+}
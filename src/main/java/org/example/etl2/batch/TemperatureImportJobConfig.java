@@ -1,23 +1,55 @@
 package org.example.etl2.batch;
 
+import org.example.etl2.batch.deadletter.DeadLetterItemReader;
+import org.example.etl2.batch.deadletter.DeadLetterStore;
+import org.example.etl2.batch.listener.AdaptiveChunkCompletionPolicy;
+import org.example.etl2.batch.listener.ImportMetrics;
 import org.example.etl2.batch.listener.JobCompletionListener;
 import org.example.etl2.batch.listener.SkipItemListener;
+import org.example.etl2.batch.listener.StageMetricsListener;
+import org.example.etl2.batch.processor.InvalidReadingException;
+import org.example.etl2.batch.processor.KnownDuplicateFilter;
 import org.example.etl2.batch.processor.TemperatureItemProcessor;
+import org.example.etl2.batch.reader.FileOffsetStore;
+import org.example.etl2.batch.reader.InputFilePartitioner;
+import org.example.etl2.batch.reader.PrefetchingItemReader;
+import org.example.etl2.batch.tasklet.PartitionMaintenanceTasklet;
 import org.example.etl2.model.TemperatureReading;
 import org.springframework.batch.core.job.Job;
 import org.springframework.batch.core.step.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.parameters.RunIdIncrementer;
+import org.springframework.batch.core.listener.ChunkListener;
+import org.springframework.batch.core.listener.ItemProcessListener;
+import org.springframework.batch.core.listener.ItemReadListener;
+import org.springframework.batch.core.listener.ItemWriteListener;
+import org.springframework.batch.core.listener.SkipListener;
+import org.springframework.batch.core.listener.StepExecutionListener;
 import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.FaultTolerantStepBuilder;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
 import org.springframework.batch.core.step.builder.StepBuilder;
-import org.springframework.batch.infrastructure.item.database.JdbcBatchItemWriter;
+import org.springframework.batch.infrastructure.item.ItemProcessor;
+import org.springframework.batch.infrastructure.item.ItemReader;
+import org.springframework.batch.infrastructure.item.ItemStreamReader;
+import org.springframework.batch.infrastructure.item.ItemWriter;
 import org.springframework.batch.infrastructure.item.file.FlatFileParseException;
 import org.springframework.batch.infrastructure.item.file.MultiResourceItemReader;
+import org.springframework.batch.infrastructure.item.support.CompositeItemProcessor;
+import org.springframework.batch.infrastructure.support.transaction.ResourcelessTransactionManager;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
+import java.util.function.Supplier;
+
 @Configuration
 @EnableBatchProcessing
 public class TemperatureImportJobConfig {
@@ -25,51 +57,305 @@ public class TemperatureImportJobConfig {
     private final JobRepository jobRepository;
     private final PlatformTransactionManager transactionManager;
     private final MultiResourceItemReader<TemperatureReading> multiResourceItemReader;
+    private final ItemStreamReader<TemperatureReading> partitionItemReader;
+    private final InputFilePartitioner inputFilePartitioner;
+    private final TaskExecutor importTaskExecutor;
     private final TemperatureItemProcessor temperatureItemProcessor;
-    private final JdbcBatchItemWriter<TemperatureReading> temperatureWriter;
+    private final KnownDuplicateFilter knownDuplicateFilter;
+    private final ItemWriter<TemperatureReading> temperatureWriter;
     private final JobCompletionListener jobCompletionListener;
-    private final SkipItemListener skipItemListener;
+    private final DeadLetterStore deadLetterStore;
+    private final PartitionMaintenanceTasklet partitionMaintenanceTasklet;
+    private final FileOffsetStore fileOffsetStore;
+    private final DeadLetterItemReader<TemperatureReading> deadLetterItemReader;
+    private final ImportMetrics importMetrics;
 
     @Value("${batch.chunk-size:1000}")
     private int chunkSize;
 
+    @Value("${batch.chunk.adaptive.enabled:false}")
+    private boolean adaptiveChunkSize;
+
+    @Value("${batch.chunk.adaptive.min-size:100}")
+    private int minChunkSize;
+
+    @Value("${batch.chunk.adaptive.max-size:20000}")
+    private int maxChunkSize;
+
+    @Value("${batch.chunk.adaptive.target-time:1s}")
+    private Duration targetChunkTime;
+
+    @Value("${batch.partition.enabled:false}")
+    private boolean partitioned;
+
+    @Value("${batch.pipeline.enabled:false}")
+    private boolean pipelined;
+
+    @Value("${batch.pipeline.batch-size:100}")
+    private int pipelineBatchSize;
+
+    @Value("${batch.pipeline.queue-capacity:20}")
+    private int pipelineQueueCapacity;
+
+    @Value("${batch.dedup.prefilter.enabled:false}")
+    private boolean duplicatePrefilter;
+
+    @Value("${batch.reader.tail.enabled:false}")
+    private boolean tail;
+
+    @Value("${batch.table-partitions.enabled:false}")
+    private boolean tablePartitions;
+
+    @Value("${batch.metrics.enabled:false}")
+    private boolean metrics;
+
+    @Value("${batch.dead-letter.enabled:false}")
+    private boolean deadLetters;
+
     public TemperatureImportJobConfig(
             JobRepository jobRepository,
             PlatformTransactionManager transactionManager,
             MultiResourceItemReader<TemperatureReading> multiResourceItemReader,
+            ItemStreamReader<TemperatureReading> partitionItemReader,
+            InputFilePartitioner inputFilePartitioner,
+            TaskExecutor importTaskExecutor,
             TemperatureItemProcessor temperatureItemProcessor,
-            JdbcBatchItemWriter<TemperatureReading> temperatureWriter,
+            KnownDuplicateFilter knownDuplicateFilter,
+            ItemWriter<TemperatureReading> temperatureWriter,
             JobCompletionListener jobCompletionListener,
-            SkipItemListener skipItemListener) {
+            DeadLetterStore deadLetterStore,
+            PartitionMaintenanceTasklet partitionMaintenanceTasklet,
+            FileOffsetStore fileOffsetStore,
+            DeadLetterItemReader<TemperatureReading> deadLetterItemReader,
+            ImportMetrics importMetrics) {
         this.jobRepository = jobRepository;
         this.transactionManager = transactionManager;
         this.multiResourceItemReader = multiResourceItemReader;
+        this.partitionItemReader = partitionItemReader;
+        this.inputFilePartitioner = inputFilePartitioner;
+        this.importTaskExecutor = importTaskExecutor;
         this.temperatureItemProcessor = temperatureItemProcessor;
+        this.knownDuplicateFilter = knownDuplicateFilter;
         this.temperatureWriter = temperatureWriter;
         this.jobCompletionListener = jobCompletionListener;
-        this.skipItemListener = skipItemListener;
+        this.deadLetterStore = deadLetterStore;
+        this.partitionMaintenanceTasklet = partitionMaintenanceTasklet;
+        this.fileOffsetStore = fileOffsetStore;
+        this.deadLetterItemReader = deadLetterItemReader;
+        this.importMetrics = importMetrics;
     }
 
     @Bean
     public Step importStep() {
-        return new StepBuilder("importStep", jobRepository)
-                .<TemperatureReading, TemperatureReading>chunk(chunkSize, transactionManager)
-                .reader(multiResourceItemReader)
-                .processor(temperatureItemProcessor)
+        if (partitioned) {
+            if (temperatureItemProcessor.checksRateOfChange()) {
+                // Partitions of one station's readings run in parallel and out of order
+                throw new IllegalStateException("batch.validation.max-change-per-hour needs batch.partition.enabled=false");
+            }
+            return new StepBuilder("importStep", jobRepository)
+                    .partitioner("importWorkerStep", inputFilePartitioner)
+                    .step(importWorkerStep())
+                    .taskExecutor(importTaskExecutor)
+                    .build();
+        }
+        if (pipelined) {
+            // Files are parsed on a background thread ahead of the step, so the file of a
+            // failed read is taken on that thread
+            var reader = new PrefetchingItemReader<>(multiResourceItemReader, pipelineBatchSize, pipelineQueueCapacity,
+                    this::currentInputFile);
+            return chunkStep("importStep", reader, serialStageMetricsListener(),
+                    skipItemListener(() -> (String) reader.getFailureContext()));
+        }
+        return chunkStep("importStep", multiResourceItemReader, serialStageMetricsListener(),
+                skipItemListener(this::currentInputFile));
+    }
+
+    private String currentInputFile() {
+        Resource resource = multiResourceItemReader.getCurrentResource();
+        return resource != null ? resource.getDescription() : "";
+    }
+
+    /**
+     * Worker step of the partitioned import. Each partition reads a single file, or a byte
+     * range of a large file, with its own step scoped reader, so read position and counts
+     * are tracked per partition.
+     */
+    @Bean
+    public Step importWorkerStep() {
+        return chunkStep("importWorkerStep", partitionItemReader, stageMetricsListener(null),
+                partitionSkipItemListener(null));
+    }
+
+    private Step chunkStep(String name, ItemReader<TemperatureReading> reader,
+                           StageMetricsListener metricsListener, SkipItemListener skipListener) {
+        SimpleStepBuilder<TemperatureReading, TemperatureReading> builder;
+        if (adaptiveChunkSize) {
+            AdaptiveChunkCompletionPolicy policy = chunkCompletionPolicy();
+            builder = new StepBuilder(name, jobRepository)
+                    .<TemperatureReading, TemperatureReading>chunk(policy, transactionManager)
+                    .listener((StepExecutionListener) policy);
+            builder.listener((ChunkListener) policy);
+        } else {
+            builder = new StepBuilder(name, jobRepository)
+                    .chunk(chunkSize, transactionManager);
+        }
+        if (tail) {
+            // Saves the offsets the step's readers reached once the step completed
+            builder.listener((StepExecutionListener) fileOffsetStore);
+        }
+        FaultTolerantStepBuilder<TemperatureReading, TemperatureReading> faultTolerant = builder
+                .reader(reader)
+                .processor(processor())
                 .writer(temperatureWriter)
                 .faultTolerant()
                 .skip(FlatFileParseException.class)
                 .skip(Exception.class)
                 .skipLimit(Integer.MAX_VALUE)
-                .listener(skipItemListener)
+                .noRollback(InvalidReadingException.class)
+                .listener((SkipListener<TemperatureReading, TemperatureReading>) skipListener);
+        faultTolerant.listener((ItemReadListener<TemperatureReading>) skipListener);
+        faultTolerant.listener((StepExecutionListener) skipListener);
+        if (metrics) {
+            faultTolerant.listener((StepExecutionListener) metricsListener);
+            faultTolerant.listener((ChunkListener) metricsListener);
+            faultTolerant.listener((ItemReadListener<TemperatureReading>) metricsListener);
+            faultTolerant.listener((ItemProcessListener<TemperatureReading, TemperatureReading>) metricsListener);
+            faultTolerant.listener((ItemWriteListener<TemperatureReading>) metricsListener);
+            faultTolerant.listener((SkipListener<TemperatureReading, TemperatureReading>) metricsListener);
+        }
+        return faultTolerant.build();
+    }
+
+    /**
+     * Skip listener of a serial step, which only runs one execution at a time.
+     *
+     * @param currentFile the file of the step's last failed read
+     */
+    private SkipItemListener skipItemListener(Supplier<String> currentFile) {
+        return new SkipItemListener(deadLetterStore, deadLetters, currentFile);
+    }
+
+    /**
+     * Skip listener of a partition of the partitioned import, storing the rows it skips
+     * with the partition's file.
+     */
+    @Bean
+    @StepScope
+    public SkipItemListener partitionSkipItemListener(
+            @Value("#{stepExecutionContext['" + InputFilePartitioner.FILE_NAME_KEY + "']}") Resource file) {
+        return new SkipItemListener(deadLetterStore, deadLetters, () -> file != null ? file.getDescription() : "");
+    }
+
+    /**
+     * Stage metrics of a step reading a single file: a partition of the partitioned
+     * import, tagged with the partition's file, or the dead letter replay, which has none.
+     */
+    @Bean
+    @StepScope
+    public StageMetricsListener stageMetricsListener(
+            @Value("#{stepExecutionContext['" + InputFilePartitioner.FILE_NAME_KEY + "']}") Resource file) {
+        return new StageMetricsListener(importMetrics, () -> file);
+    }
+
+    /**
+     * Stage metrics of the serial import, tagged with the file the multi-file reader is at.
+     */
+    @Bean
+    @StepScope
+    public StageMetricsListener serialStageMetricsListener() {
+        return new StageMetricsListener(importMetrics, multiResourceItemReader::getCurrentResource);
+    }
+
+    /**
+     * Chunk size controller of the import steps, step scoped so that partitions running in
+     * parallel each measure and size their own chunks.
+     */
+    @Bean
+    @StepScope
+    public AdaptiveChunkCompletionPolicy chunkCompletionPolicy() {
+        return new AdaptiveChunkCompletionPolicy(jobRepository, chunkSize, minChunkSize, maxChunkSize, targetChunkTime);
+    }
+
+    private ItemProcessor<TemperatureReading, TemperatureReading> processor() {
+        if (duplicatePrefilter) {
+            return new CompositeItemProcessor<>(knownDuplicateFilter, temperatureItemProcessor);
+        }
+        return temperatureItemProcessor;
+    }
+
+    /**
+     * Creates the monthly partitions of {@code temperature_data} the import may insert into
+     * and drops the expired ones, before the import step runs.
+     */
+    @Bean
+    public Step partitionMaintenanceStep() {
+        return partitionMaintenanceStep("partitionMaintenanceStep");
+    }
+
+    /**
+     * Splits monthly partitions for the rows the import added before the existing ones.
+     */
+    @Bean
+    public Step partitionSplitStep() {
+        return partitionMaintenanceStep("partitionSplitStep");
+    }
+
+    private Step partitionMaintenanceStep(String name) {
+        // MySQL commits DDL implicitly, so there is no transaction to run it in
+        return new StepBuilder(name, jobRepository)
+                .tasklet(partitionMaintenanceTasklet, new ResourcelessTransactionManager())
+                .allowStartIfComplete(true)
                 .build();
     }
 
     @Bean
-    public Job temperatureImportJob(Step importStep) {
-        return new JobBuilder("temperatureImportJob", jobRepository)
+    @Primary
+    public Job temperatureImportJob(Step importStep, Step partitionMaintenanceStep, Step partitionSplitStep) {
+        var builder = new JobBuilder("temperatureImportJob", jobRepository)
                 .listener(jobCompletionListener)
+                .listener(temperatureItemProcessor);
+        if (duplicatePrefilter) {
+            builder.listener(knownDuplicateFilter);
+        }
+        if (metrics) {
+            builder.listener(importMetrics);
+        }
+        if (tablePartitions) {
+            return builder
+                    .start(partitionMaintenanceStep)
+                    .next(importStep)
+                    .next(partitionSplitStep)
+                    .build();
+        }
+        return builder
                 .start(importStep)
                 .build();
     }
+
+    /**
+     * Runs the rows stored by the dead letter store through the import's processor and
+     * writer. Rows failing again are skipped and stored in a new segment.
+     */
+    @Bean
+    public Step deadLetterReplayStep() {
+        return chunkStep("deadLetterReplayStep", deadLetterItemReader, stageMetricsListener(null),
+                skipItemListener(deadLetterItemReader::getCurrentSourceFile));
+    }
+
+    @Bean
+    public Job deadLetterReplayJob(Step deadLetterReplayStep) {
+        var builder = new JobBuilder("deadLetterReplayJob", jobRepository)
+                .incrementer(new RunIdIncrementer())
+                .listener(jobCompletionListener)
+                .listener(temperatureItemProcessor);
+        if (duplicatePrefilter) {
+            builder.listener(knownDuplicateFilter);
+        }
+        if (metrics) {
+            builder.listener(importMetrics);
+        }
+        return builder
+                .start(deadLetterReplayStep)
+                .build();
+    }
 }
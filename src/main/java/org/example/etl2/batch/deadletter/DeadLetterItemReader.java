@@ -0,0 +1,142 @@
+package org.example.etl2.batch.deadletter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.listener.StepExecutionListener;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.batch.infrastructure.item.file.FlatFileParseException;
+import org.springframework.batch.infrastructure.item.file.LineMapper;
+import org.springframework.batch.infrastructure.item.support.AbstractItemCountingItemStreamItemReader;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the rows of the sealed {@link DeadLetterStore} segments and maps their raw lines
+ * with the import's line mapper. A row that still cannot be parsed fails with a
+ * {@link FlatFileParseException} carrying its original file and line number, so it is
+ * skipped and stored again like during the import.
+ * <p>
+ * The segments are sealed and listed when the reader opens; skips of the replay itself
+ * go to a new segment. Once the step completed, the replayed segments are renamed with a
+ * {@code .replayed} suffix. The list is saved in the step's execution context, so a
+ * restarted step reads the same segments, and not those written since, and skips the
+ * rows it already read.
+ */
+public class DeadLetterItemReader<T> extends AbstractItemCountingItemStreamItemReader<T>
+        implements StepExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterItemReader.class);
+    private static final String REPLAYED_SUFFIX = ".replayed";
+    private static final String SEGMENTS_KEY = "segments";
+
+    private final DeadLetterStore store;
+    private final LineMapper<T> lineMapper;
+
+    private List<Path> segments;
+    private List<Path> restoredSegments;
+    private int segmentIndex;
+    private DataInputStream input;
+    private DeadLetterRecord current;
+
+    public DeadLetterItemReader(DeadLetterStore store, LineMapper<T> lineMapper) {
+        this.store = store;
+        this.lineMapper = lineMapper;
+        setName("deadLetterItemReader");
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        String key = getExecutionContextKey(SEGMENTS_KEY);
+        restoredSegments = null;
+        if (executionContext.containsKey(key)) {
+            restoredSegments = Arrays.stream(executionContext.getString(key).split("\n"))
+                    .filter(name -> !name.isEmpty())
+                    .map(Path::of)
+                    .toList();
+        }
+        super.open(executionContext);
+    }
+
+    @Override
+    protected void doOpen() {
+        segments = restoredSegments != null ? restoredSegments : store.seal();
+        segmentIndex = 0;
+        current = null;
+        log.info("Replaying {} dead letter segments", segments.size());
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        super.update(executionContext);
+        if (segments != null) {
+            executionContext.putString(getExecutionContextKey(SEGMENTS_KEY),
+                    segments.stream().map(Path::toString).collect(Collectors.joining("\n")));
+        }
+    }
+
+    /**
+     * @return the file the last row read came from, empty if unknown
+     */
+    public String getCurrentSourceFile() {
+        return current != null ? current.sourceFile() : "";
+    }
+
+    @Override
+    protected T doRead() throws Exception {
+        while (segmentIndex < segments.size()) {
+            if (input == null) {
+                input = DeadLetterStore.open(segments.get(segmentIndex));
+            }
+            DeadLetterRecord record = DeadLetterStore.read(input);
+            if (record != null) {
+                current = record;
+                return map(record);
+            }
+            input.close();
+            input = null;
+            segmentIndex++;
+        }
+        return null;
+    }
+
+    private T map(DeadLetterRecord record) {
+        int lineNumber = (int) record.lineNumber();
+        try {
+            return lineMapper.mapLine(record.rawLine(), lineNumber);
+        } catch (Exception e) {
+            throw new FlatFileParseException("Parsing error at line: " + lineNumber + " in resource=["
+                    + record.sourceFile() + "], input=[" + record.rawLine() + "]", e, record.rawLine(), lineNumber);
+        }
+    }
+
+    @Override
+    protected void doClose() throws IOException {
+        if (input != null) {
+            input.close();
+            input = null;
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (stepExecution.getStatus() == BatchStatus.COMPLETED && segments != null) {
+            for (Path segment : segments) {
+                try {
+                    Files.move(segment, segment.resolveSibling(segment.getFileName() + REPLAYED_SUFFIX));
+                } catch (IOException e) {
+                    log.warn("Failed to mark dead letter segment {} as replayed", segment, e);
+                }
+            }
+        }
+        return null;
+    }
+}
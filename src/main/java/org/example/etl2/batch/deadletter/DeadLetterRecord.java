@@ -0,0 +1,12 @@
+package org.example.etl2.batch.deadletter;
+
+/**
+ * A skipped input row.
+ *
+ * @param sourceFile    description of the file the row was read from, empty if unknown
+ * @param lineNumber    line of the row in that file, {@code 0} if unknown
+ * @param exceptionType class name of the exception the row was skipped for
+ * @param rawLine       the CSV line, as read or rebuilt from the parsed reading
+ */
+public record DeadLetterRecord(String sourceFile, long lineNumber, String exceptionType, String rawLine) {
+}
@@ -0,0 +1,194 @@
+package org.example.etl2.batch.deadletter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends skipped rows to segment files in a local directory. A segment is a sequence
+ * of binary records: source file and exception type as modified UTF-8 strings, the line
+ * number as a {@code long} and the raw line as length-prefixed UTF-8 bytes. Segments are
+ * rolled over at the configured size and named after their creation time, so their
+ * names sort in the order they were written.
+ * <p>
+ * {@link #seal()} closes the segment being written, after which the sealed segments can
+ * be replayed while new skips go to a new segment. A record cut short by a crash ends
+ * its segment.
+ * <p>
+ * Within a transaction the records are held back until it commits and dropped when it
+ * rolls back, so the rows skipped in a chunk that is rolled back and scanned again are
+ * only stored by the attempt that committed.
+ */
+@Component
+public class DeadLetterStore {
+
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterStore.class);
+
+    static final String SEGMENT_EXTENSION = ".dlq";
+    private static final int MAGIC = 0x444c5131; // "DLQ1"
+
+    private final Path directory;
+    private final long segmentSize;
+
+    private DataOutputStream output;
+    private Path segment;
+    private long lastSegmentMillis;
+
+    public DeadLetterStore(
+            @Value("${batch.dead-letter.directory:./dead-letter}") Path directory,
+            @Value("${batch.dead-letter.segment-size:64MB}") DataSize segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize.toBytes();
+    }
+
+    public void append(DeadLetterRecord record) {
+        List<DeadLetterRecord> pending = pending();
+        if (pending != null) {
+            pending.add(record);
+        } else {
+            write(List.of(record));
+        }
+    }
+
+    private synchronized void write(List<DeadLetterRecord> records) {
+        try {
+            for (DeadLetterRecord record : records) {
+                if (output == null || output.size() >= segmentSize) {
+                    roll();
+                }
+                output.writeUTF(record.sourceFile());
+                output.writeLong(record.lineNumber());
+                output.writeUTF(record.exceptionType());
+                byte[] line = record.rawLine().getBytes(StandardCharsets.UTF_8);
+                output.writeInt(line.length);
+                output.write(line);
+            }
+            output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store skipped row in " + segment, e);
+        }
+    }
+
+    /**
+     * @return the records held back for the current transaction, or {@code null} outside a transaction
+     */
+    private List<DeadLetterRecord> pending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        var pending = (List<DeadLetterRecord>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<DeadLetterRecord> created = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(DeadLetterStore.this);
+                    if (status == STATUS_COMMITTED) {
+                        try {
+                            write(created);
+                        } catch (UncheckedIOException e) {
+                            // The chunk is committed already, so the rows can only be reported
+                            log.error("Failed to store {} skipped rows: {}", created.size(), created, e);
+                        }
+                    }
+                }
+            });
+            pending = created;
+        }
+        return pending;
+    }
+
+    /**
+     * Closes the segment being written.
+     *
+     * @return all segments that are not written to anymore, oldest first
+     */
+    public synchronized List<Path> seal() {
+        close();
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_EXTENSION)) {
+            files.forEach(segments::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list dead letter segments in " + directory, e);
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    /**
+     * Opens a segment for reading; {@link #read(DataInputStream)} then returns its
+     * records one by one.
+     */
+    static DataInputStream open(Path segment) throws IOException {
+        var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)));
+        if (input.readInt() != MAGIC) {
+            input.close();
+            throw new IOException("Not a dead letter segment: " + segment);
+        }
+        return input;
+    }
+
+    /**
+     * @return the next record, or {@code null} at the end of the segment
+     */
+    static DeadLetterRecord read(DataInputStream input) throws IOException {
+        try {
+            String sourceFile = input.readUTF();
+            long lineNumber = input.readLong();
+            String exceptionType = input.readUTF();
+            byte[] line = new byte[input.readInt()];
+            input.readFully(line);
+            return new DeadLetterRecord(sourceFile, lineNumber, exceptionType, new String(line, StandardCharsets.UTF_8));
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private void roll() throws IOException {
+        close();
+        Files.createDirectories(directory);
+        // Strictly increasing, so segments created within a millisecond keep their order
+        lastSegmentMillis = Math.max(System.currentTimeMillis(), lastSegmentMillis + 1);
+        segment = directory.resolve(String.format("skipped-%013d%s", lastSegmentMillis, SEGMENT_EXTENSION));
+        output = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)));
+        output.writeInt(MAGIC);
+        log.info("Storing skipped rows in {}", segment);
+    }
+
+    private void close() {
+        if (output == null) {
+            return;
+        }
+        try {
+            output.close();
+        } catch (IOException e) {
+            log.error("Failed to close dead letter segment {}", segment, e);
+        }
+        output = null;
+    }
+}
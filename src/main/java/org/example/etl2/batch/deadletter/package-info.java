@@ -0,0 +1,4 @@
+/**
+ * Storage of skipped input rows and their replay through the import pipeline.
+ */
+package org.example.etl2.batch.deadletter;
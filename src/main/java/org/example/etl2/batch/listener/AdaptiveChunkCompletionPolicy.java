@@ -0,0 +1,119 @@
+package org.example.etl2.batch.listener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.job.JobInstance;
+import org.springframework.batch.core.listener.ChunkListener;
+import org.springframework.batch.core.listener.StepExecutionListener;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.batch.infrastructure.repeat.policy.SimpleCompletionPolicy;
+
+import java.time.Duration;
+
+/**
+ * Chunk completion policy that sizes chunks so that each chunk transaction takes about
+ * a target time. After every chunk the measured time and row rate give the size that
+ * would have hit the target; the chunk size moves halfway towards it, at most doubling
+ * or halving per chunk and staying within the configured bounds. A failed chunk halves
+ * the size.
+ * <p>
+ * The current size and the last measured rate are kept in the step execution context
+ * under {@link #CHUNK_SIZE_KEY} and {@link #ROWS_PER_SECOND_KEY}. A step starts with
+ * the size saved by its previous execution, of this job instance on restart or else of
+ * the previous job instance, and falls back to the initial size.
+ * <p>
+ * Must be registered as chunk and step listener of the step it completes. Keeps state
+ * per step execution, so it has to be step scoped when steps run in parallel.
+ */
+public class AdaptiveChunkCompletionPolicy extends SimpleCompletionPolicy
+        implements ChunkListener, StepExecutionListener {
+
+    public static final String CHUNK_SIZE_KEY = "adaptive.chunk.size";
+    public static final String ROWS_PER_SECOND_KEY = "adaptive.chunk.rows-per-second";
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveChunkCompletionPolicy.class);
+
+    private final JobRepository jobRepository;
+    private final int initialSize;
+    private final int minSize;
+    private final int maxSize;
+    private final long targetNanos;
+
+    private long chunkStart;
+    private long readCountAtStart;
+    private long writeCountAtStart;
+
+    public AdaptiveChunkCompletionPolicy(JobRepository jobRepository, int initialSize, int minSize, int maxSize,
+                                         Duration targetTime) {
+        super(initialSize);
+        this.jobRepository = jobRepository;
+        this.initialSize = initialSize;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetNanos = targetTime.toNanos();
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        ExecutionContext executionContext = stepExecution.getExecutionContext();
+        int size = executionContext.containsKey(CHUNK_SIZE_KEY)
+                ? executionContext.getInt(CHUNK_SIZE_KEY)
+                : previousSize(stepExecution);
+        setChunkSize(clamp(size));
+        log.debug("Step {} starts with chunk size {}", stepExecution.getStepName(), getChunkSize());
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        StepExecution stepExecution = context.getStepContext().getStepExecution();
+        chunkStart = System.nanoTime();
+        readCountAtStart = stepExecution.getReadCount() + stepExecution.getReadSkipCount();
+        writeCountAtStart = stepExecution.getWriteCount();
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        StepExecution stepExecution = context.getStepContext().getStepExecution();
+        long elapsed = Math.max(System.nanoTime() - chunkStart, 1);
+        long read = stepExecution.getReadCount() + stepExecution.getReadSkipCount() - readCountAtStart;
+        long written = stepExecution.getWriteCount() - writeCountAtStart;
+
+        // A short chunk means the input ended, its time says nothing about the size
+        if (read >= getChunkSize()) {
+            long ideal = read * targetNanos / elapsed;
+            long next = getChunkSize() + (ideal - getChunkSize()) / 2;
+            next = Math.min(Math.max(next, getChunkSize() / 2), getChunkSize() * 2L);
+            setChunkSize(clamp(next));
+        }
+
+        ExecutionContext executionContext = stepExecution.getExecutionContext();
+        executionContext.putInt(CHUNK_SIZE_KEY, getChunkSize());
+        executionContext.putLong(ROWS_PER_SECOND_KEY, written * 1_000_000_000L / elapsed);
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        setChunkSize(clamp(getChunkSize() / 2));
+        context.getStepContext().getStepExecution().getExecutionContext().putInt(CHUNK_SIZE_KEY, getChunkSize());
+    }
+
+    private int previousSize(StepExecution stepExecution) {
+        JobInstance current = stepExecution.getJobExecution().getJobInstance();
+        for (JobInstance instance : jobRepository.getJobInstances(current.getJobName(), 0, 2)) {
+            if (!instance.equals(current)) {
+                StepExecution previous = jobRepository.getLastStepExecution(instance, stepExecution.getStepName());
+                if (previous != null) {
+                    return previous.getExecutionContext().getInt(CHUNK_SIZE_KEY, initialSize);
+                }
+            }
+        }
+        return initialSize;
+    }
+
+    private int clamp(long size) {
+        return (int) Math.min(Math.max(size, minSize), maxSize);
+    }
+}
@@ -3,28 +3,84 @@ package org.example.etl2.batch.listener;
 import org.example.etl2.model.TemperatureReading;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Writes the duplicate log of a job without holding up the writers. Duplicates are
+ * pushed into a lock-free {@link DuplicateRingBuffer}; one background thread per job
+ * takes them out, encodes the lines into a reused byte buffer and writes the buffer
+ * through a {@link FileChannel} once it is full or the flush interval has passed.
+ * {@link #close()} writes everything still queued or buffered before closing the file.
+ * <p>
+ * When the ring buffer is full, producers wait for the background thread to make room,
+ * so no duplicate is dropped while the log is open. Only duplicates that find the log
+ * closed, or its background thread dead, are dropped; they are counted and the count is
+ * logged when the log is closed. {@link #close()} waits for the producers that found
+ * the log open before it stops the background thread, so none of them can queue a
+ * duplicate that is never taken out.
+ */
 @Component
 public class DuplicateLogWriter {
 
     private static final Logger log = LoggerFactory.getLogger(DuplicateLogWriter.class);
     private static final String LOGS_DIRECTORY = "logs";
     private static final DateTimeFormatter FILE_TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
-    private static final DateTimeFormatter ISO_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long FULL_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
 
-    private BufferedWriter writer;
+    private final int queueCapacity;
+    private final int bufferSize;
+    private final Duration flushInterval;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private volatile DuplicateRingBuffer queue;
+    private volatile boolean running;
+    private volatile Thread consumer;
     private Path logFilePath;
+    private final AtomicLong dropped = new AtomicLong();
+    /** Producers between reading {@link #queue} and being done with it. */
+    private final AtomicInteger producers = new AtomicInteger();
+
+    // Used by the consumer thread only
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private final StringBuilder line = new StringBuilder(128);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private long lastWriteNanos;
+
+    public DuplicateLogWriter(
+            @Value("${batch.duplicate-log.queue-capacity:8192}") int queueCapacity,
+            @Value("${batch.duplicate-log.buffer-size:64KB}") DataSize bufferSize,
+            @Value("${batch.duplicate-log.flush-interval:1s}") Duration flushInterval) {
+        this.queueCapacity = queueCapacity;
+        this.bufferSize = (int) bufferSize.toBytes();
+        this.flushInterval = flushInterval;
+    }
 
-    public void initialize(Long jobId) {
+    public synchronized void initialize(Long jobId) {
+        close();
         try {
             Path logsDir = Path.of(LOGS_DIRECTORY);
             if (!Files.exists(logsDir)) {
@@ -32,13 +88,21 @@ public class DuplicateLogWriter {
             }
 
             String timestamp = LocalDateTime.now().format(FILE_TIMESTAMP_FORMATTER);
-            String filename = "duplicates-" + timestamp + ".log";
+            // The job id keeps names unique when several jobs start within the same second
+            String filename = "duplicates-" + timestamp + "-" + jobId + ".log";
             logFilePath = logsDir.resolve(filename);
 
-            writer = Files.newBufferedWriter(logFilePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
-            writer.write("# Duplicate records detected during job execution " + jobId);
-            writer.newLine();
-            writer.flush();
+            channel = FileChannel.open(logFilePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            buffer = ByteBuffer.allocate(bufferSize);
+            channel.write(StandardCharsets.UTF_8.encode(
+                    "# Duplicate records detected during job execution " + jobId + System.lineSeparator()));
+
+            dropped.set(0);
+            var created = new DuplicateRingBuffer(queueCapacity);
+            running = true;
+            // Started before the queue is published, so producers never see a queue with the previous consumer
+            consumer = Thread.ofPlatform().name("duplicate-log-" + jobId).daemon().start(() -> consume(created));
+            queue = created;
 
             log.info("Duplicate log file created: {}", logFilePath);
         } catch (IOException e) {
@@ -47,40 +111,177 @@ public class DuplicateLogWriter {
         }
     }
 
+    /**
+     * Queues a duplicate record, stamped with the current time. Safe to call from any
+     * number of threads. Waits while the queue is full, unless the background thread
+     * died, in which case the duplicate is dropped, as it is when the log is not open.
+     */
     public void writeDuplicate(TemperatureReading reading) {
-        if (writer == null) {
-            log.warn("DuplicateLogWriter not initialized, skipping duplicate logging");
-            return;
+        // Registered before the queue is read, so close() either waits for this call or it finds no queue
+        producers.incrementAndGet();
+        try {
+            DuplicateRingBuffer current = queue;
+            Thread currentConsumer = consumer;
+            if (current == null) {
+                dropped.incrementAndGet();
+                log.warn("DuplicateLogWriter not initialized, skipping duplicate logging");
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            while (!current.offer(reading, now)) {
+                if (!currentConsumer.isAlive()) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                LockSupport.unpark(currentConsumer);
+                LockSupport.parkNanos(FULL_WAIT_NANOS);
+            }
+        } finally {
+            producers.decrementAndGet();
         }
+    }
+
+    /**
+     * @return the duplicates of the current or last job that were not logged
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
 
+    /**
+     * Stops the background thread once it has written every queued duplicate, and closes
+     * the file. Duplicates left queued by a background thread that died are counted as
+     * dropped.
+     */
+    public synchronized void close() {
+        DuplicateRingBuffer current = queue;
+        if (current == null) {
+            return;
+        }
+        queue = null;
+        // The background thread keeps draining, so producers waiting for room get it
+        while (producers.get() > 0) {
+            LockSupport.parkNanos(FULL_WAIT_NANOS);
+        }
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!consumer.isAlive()) {
+            dropped.addAndGet(current.drain((reading, reportedAtMillis) -> {
+            }));
+        }
+        if (dropped.get() > 0) {
+            log.warn("{} duplicates were not written to {}", dropped.get(), logFilePath);
+        }
         try {
-            String timestamp = LocalDateTime.now().format(ISO_FORMATTER);
-            String line = String.format("%s|%s|%s|%s",
-                    timestamp,
-                    reading.name(),
-                    reading.datetime().format(ISO_FORMATTER),
-                    reading.temp());
-            writer.write(line);
-            writer.newLine();
-            writer.flush();
+            channel.close();
+            log.info("Duplicate log file closed: {}", logFilePath);
         } catch (IOException e) {
-            log.error("Failed to write duplicate record to log file", e);
+            log.error("Failed to close duplicate log file", e);
         }
+        channel = null;
+    }
+
+    public Path getLogFilePath() {
+        return logFilePath;
     }
 
-    public void close() {
-        if (writer != null) {
-            try {
-                writer.close();
-                log.info("Duplicate log file closed: {}", logFilePath);
-            } catch (IOException e) {
-                log.error("Failed to close duplicate log file", e);
+    private void consume(DuplicateRingBuffer current) {
+        try {
+            drainUntilClosed(current);
+        } catch (RuntimeException e) {
+            // Producers stop waiting for this thread and drop their duplicates
+            log.error("Duplicate log writer stopped, further duplicates are not written to {}", logFilePath, e);
+        }
+    }
+
+    private void drainUntilClosed(DuplicateRingBuffer current) {
+        lastWriteNanos = System.nanoTime();
+        while (true) {
+            // Read before draining, so nothing offered before close() can be left behind
+            boolean stopping = !running;
+            int drained = current.drain(this::encode);
+            if (buffer.position() > 0 && (stopping || System.nanoTime() - lastWriteNanos >= flushInterval.toNanos())) {
+                writeBuffer();
+            }
+            if (stopping && current.isEmpty()) {
+                return;
+            }
+            if (drained == 0) {
+                LockSupport.parkNanos(Math.min(IDLE_WAIT_NANOS, flushInterval.toNanos()));
             }
-            writer = null;
         }
     }
 
-    public Path getLogFilePath() {
-        return logFilePath;
+    /**
+     * Appends {@code reportedAt|name|datetime|temp} to the buffer, writing the buffer
+     * whenever it fills up.
+     */
+    private void encode(TemperatureReading reading, long reportedAtMillis) {
+        line.setLength(0);
+        appendDateTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(reportedAtMillis), zone));
+        line.append('|').append(reading.name()).append('|');
+        appendDateTime(reading.datetime());
+        line.append('|').append(reading.temp()).append(System.lineSeparator());
+
+        CharBuffer chars = CharBuffer.wrap(line);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                writeBuffer();
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Appends the datetime as {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME} would.
+     */
+    private void appendDateTime(LocalDateTime dateTime) {
+        appendPadded(dateTime.getYear(), 4).append('-');
+        appendPadded(dateTime.getMonthValue(), 2).append('-');
+        appendPadded(dateTime.getDayOfMonth(), 2).append('T');
+        appendPadded(dateTime.getHour(), 2).append(':');
+        appendPadded(dateTime.getMinute(), 2).append(':');
+        appendPadded(dateTime.getSecond(), 2);
+        int nano = dateTime.getNano();
+        if (nano != 0) {
+            int digits = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                digits--;
+            }
+            line.append('.');
+            appendPadded(nano, digits);
+        }
+    }
+
+    private StringBuilder appendPadded(int value, int width) {
+        for (int limit = 10, i = 1; i < width; limit *= 10, i++) {
+            if (value < limit) {
+                line.append('0');
+            }
+        }
+        return line.append(value);
+    }
+
+    private void writeBuffer() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            log.error("Failed to write duplicate log file", e);
+        }
+        buffer.clear();
+        lastWriteNanos = System.nanoTime();
     }
 }
@@ -0,0 +1,104 @@
+package org.example.etl2.batch.listener;
+
+import org.example.etl2.model.TemperatureReading;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue of duplicate readings with many producers and one consumer.
+ * Every slot carries a sequence number: a producer claims a position by advancing the
+ * tail with a compare-and-set, fills the slot and publishes it by setting the slot's
+ * sequence; the consumer takes slots in order once they are published and hands them
+ * back by moving their sequence one lap ahead.
+ * <p>
+ * Each entry is a reading and the time it was reported, kept in parallel arrays so no
+ * object is allocated per entry.
+ */
+class DuplicateRingBuffer {
+
+    /**
+     * Receives the entries taken from the buffer.
+     */
+    interface Consumer {
+
+        void accept(TemperatureReading reading, long reportedAtMillis);
+    }
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final TemperatureReading[] readings;
+    private final long[] reportedAt;
+    private final AtomicLong tail = new AtomicLong();
+    /** Only read and written by the consumer. */
+    private long head;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    DuplicateRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.readings = new TemperatureReading[size];
+        this.reportedAt = new long[size];
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return {@code false} if the buffer is full
+     */
+    boolean offer(TemperatureReading reading, long reportedAtMillis) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    readings[index] = reading;
+                    reportedAt[index] = reportedAtMillis;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                // Another producer claimed this position
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Hands all published entries to the consumer. Must only be called by one thread.
+     *
+     * @return the number of entries taken
+     */
+    int drain(Consumer consumer) {
+        int count = 0;
+        while (true) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                return count;
+            }
+            TemperatureReading reading = readings[index];
+            long millis = reportedAt[index];
+            readings[index] = null;
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            count++;
+            consumer.accept(reading, millis);
+        }
+    }
+
+    /**
+     * Whether no entry was offered that the consumer has not taken yet. Only meaningful
+     * for the consumer, or once producers have stopped.
+     */
+    boolean isEmpty() {
+        return tail.get() == head;
+    }
+}
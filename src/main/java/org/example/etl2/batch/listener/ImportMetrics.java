@@ -0,0 +1,257 @@
+package org.example.etl2.batch.listener;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.job.JobExecution;
+import org.springframework.batch.core.listener.JobExecutionListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Micrometer meters of the import stages, tagged with the input file they belong to.
+ * <ul>
+ *   <li>{@code etl.import.rows} (tag {@code stage}: read, processed, filtered, written)</li>
+ *   <li>{@code etl.import.skips} (tag {@code stage}: read, process, write)</li>
+ *   <li>{@code etl.import.duplicates}</li>
+ *   <li>{@code etl.import.stage.time} (tag {@code stage}: read, process, write, commit),
+ *       with 50th, 95th and 99th percentiles</li>
+ * </ul>
+ * Counts are kept in {@link LongAdder}s that the registry reads when it publishes, so
+ * counting a row costs an uncontended add. Reading and processing are timed for one of
+ * every {@code batch.metrics.sample-rate} rows only; writes and commits are timed per
+ * chunk.
+ * <p>
+ * The meters of a file are updated by the {@link StageMetricsListener} of the steps
+ * reading it, which also binds the file to the step thread so that writers can report
+ * duplicates with {@link #recordDuplicates(long)}. Every {@code batch.metrics.log-interval}
+ * the rows per second and stage latencies of the files imported since the last time are
+ * logged.
+ * <p>
+ * The steps acquire the meters of the files they read and release them when they end;
+ * once the last step reading a file released it, its totals are logged. Its meters stay
+ * registered, so that a scrape after the job still sees the final counts, until the next
+ * job starts: registered as listener of the jobs, this removes the meters of every file
+ * no step uses anymore, so a long running watcher does not collect meters of every file
+ * it ever imported.
+ */
+@Component
+public class ImportMetrics implements JobExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportMetrics.class);
+
+    static final String NO_FILE = "none";
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry registry;
+    private final int sampleMask;
+    private final long logIntervalNanos;
+    private final Map<String, FileMeters> files = new ConcurrentHashMap<>();
+    private final ThreadLocal<FileMeters> current = new ThreadLocal<>();
+    private final AtomicLong nextLog;
+
+    private long lastLogNanos;
+
+    public ImportMetrics(
+            MeterRegistry registry,
+            @Value("${batch.metrics.sample-rate:64}") int sampleRate,
+            @Value("${batch.metrics.log-interval:30s}") Duration logInterval) {
+        if (sampleRate < 1 || Integer.bitCount(sampleRate) != 1) {
+            throw new IllegalArgumentException("batch.metrics.sample-rate must be a power of two: " + sampleRate);
+        }
+        this.registry = registry;
+        this.sampleMask = sampleRate - 1;
+        this.logIntervalNanos = logInterval.toNanos();
+        this.lastLogNanos = System.nanoTime();
+        this.nextLog = new AtomicLong(lastLogNanos + logIntervalNanos);
+    }
+
+    /**
+     * @return {@code sample-rate - 1}, to sample rows whose sequence number has none of its bits set
+     */
+    int sampleMask() {
+        return sampleMask;
+    }
+
+    /**
+     * @return the meters of a file, which stay registered until every step that acquired
+     * them {@linkplain #release(FileMeters) released} them and the next job started
+     */
+    FileMeters acquire(String name) {
+        return files.compute(name != null ? name : NO_FILE, (key, meters) -> {
+            FileMeters acquired = meters != null ? meters : new FileMeters(key);
+            acquired.users++;
+            return acquired;
+        });
+    }
+
+    /**
+     * Logs the totals of a file once no step uses its meters anymore.
+     */
+    void release(FileMeters meters) {
+        files.computeIfPresent(meters.name, (key, current) -> {
+            if (current != meters || --current.users > 0) {
+                return current;
+            }
+            log.info("Imported {}: {} rows read, {} written, {} filtered, {} skipped, {} duplicates",
+                    current.name, current.read.sum(), current.written.sum(), current.filtered.sum(),
+                    current.skippedInRead.sum() + current.skippedInProcess.sum() + current.skippedInWrite.sum(),
+                    current.duplicates.sum());
+            return current;
+        });
+    }
+
+    /**
+     * Removes the meters of the files of previous jobs that no step uses anymore.
+     */
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        for (String name : files.keySet()) {
+            files.computeIfPresent(name, (key, current) -> {
+                if (current.users > 0) {
+                    return current;
+                }
+                current.meters.forEach(registry::remove);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Makes the meters of a file those of the calling thread, until {@code null} is bound.
+     */
+    void bind(FileMeters meters) {
+        if (meters == null) {
+            current.remove();
+        } else {
+            current.set(meters);
+        }
+    }
+
+    /**
+     * Counts rows the database dropped as duplicates, for the file bound to the calling thread.
+     */
+    public void recordDuplicates(long count) {
+        FileMeters meters = current.get();
+        (meters != null ? meters : file(NO_FILE)).duplicates.add(count);
+    }
+
+    /**
+     * Logs the progress once the log interval passed; called after every chunk.
+     */
+    void chunkCompleted() {
+        long next = nextLog.get();
+        long now = System.nanoTime();
+        if (logIntervalNanos > 0 && now - next >= 0 && nextLog.compareAndSet(next, now + logIntervalNanos)) {
+            logProgress(now);
+        }
+    }
+
+    private synchronized void logProgress(long now) {
+        double seconds = Math.max(now - lastLogNanos, 1) / 1e9;
+        lastLogNanos = now;
+        for (FileMeters meters : files.values()) {
+            long read = meters.read.sum();
+            long written = meters.written.sum();
+            if (read == meters.loggedRead && written == meters.loggedWritten) {
+                continue;
+            }
+            log.info("Import progress {}: {} rows/s read, {} rows/s written, {} skipped, {} duplicates; "
+                            + "p50/p99 ms read {}, process {}, write {}, commit {}",
+                    meters.name,
+                    Math.round((read - meters.loggedRead) / seconds),
+                    Math.round((written - meters.loggedWritten) / seconds),
+                    meters.skippedInRead.sum() + meters.skippedInProcess.sum() + meters.skippedInWrite.sum(),
+                    meters.duplicates.sum(),
+                    percentiles(meters.readTime), percentiles(meters.processTime),
+                    percentiles(meters.writeTime), percentiles(meters.commitTime));
+            meters.loggedRead = read;
+            meters.loggedWritten = written;
+        }
+    }
+
+    private static String percentiles(Timer timer) {
+        ValueAtPercentile[] values = timer.takeSnapshot().percentileValues();
+        if (values.length < PERCENTILES.length) {
+            return "-";
+        }
+        return String.format("%.3f/%.3f", values[0].value(TimeUnit.MILLISECONDS),
+                values[PERCENTILES.length - 1].value(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Counters and timers of a single input file.
+     */
+    final class FileMeters {
+
+        final String name;
+        final LongAdder read = new LongAdder();
+        final LongAdder processed = new LongAdder();
+        final LongAdder filtered = new LongAdder();
+        final LongAdder written = new LongAdder();
+        final LongAdder skippedInRead = new LongAdder();
+        final LongAdder skippedInProcess = new LongAdder();
+        final LongAdder skippedInWrite = new LongAdder();
+        final LongAdder duplicates = new LongAdder();
+        final Timer readTime;
+        final Timer processTime;
+        final Timer writeTime;
+        final Timer commitTime;
+
+        // Only used by logProgress
+        long loggedRead;
+        long loggedWritten;
+
+        // Guarded by the entry of the file in the map of files
+        private final List<Meter> meters = new ArrayList<>();
+        private int users;
+
+        private FileMeters(String name) {
+            this.name = name;
+            counter("etl.import.rows", "read", read);
+            counter("etl.import.rows", "processed", processed);
+            counter("etl.import.rows", "filtered", filtered);
+            counter("etl.import.rows", "written", written);
+            counter("etl.import.skips", "read", skippedInRead);
+            counter("etl.import.skips", "process", skippedInProcess);
+            counter("etl.import.skips", "write", skippedInWrite);
+            meters.add(FunctionCounter.builder("etl.import.duplicates", duplicates, LongAdder::sum)
+                    .tag("file", name)
+                    .register(registry));
+            readTime = timer("read");
+            processTime = timer("process");
+            writeTime = timer("write");
+            commitTime = timer("commit");
+        }
+
+        private void counter(String meter, String stage, LongAdder adder) {
+            meters.add(FunctionCounter.builder(meter, adder, LongAdder::sum)
+                    .tag("file", name)
+                    .tag("stage", stage)
+                    .register(registry));
+        }
+
+        private Timer timer(String stage) {
+            Timer timer = Timer.builder("etl.import.stage.time")
+                    .tag("file", name)
+                    .tag("stage", stage)
+                    .publishPercentiles(PERCENTILES)
+                    .register(registry);
+            meters.add(timer);
+            return timer;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.example.etl2.batch.listener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.annotation.AfterJob;
+import org.springframework.batch.core.annotation.BeforeJob;
 import org.springframework.batch.core.job.JobExecution;
 import org.springframework.batch.core.listener.JobExecutionListener;
 import org.springframework.batch.core.step.StepExecution;
@@ -14,44 +15,87 @@ import java.util.concurrent.atomic.AtomicLong;
 public class JobCompletionListener implements JobExecutionListener {
 
     private static final Logger log = LoggerFactory.getLogger(JobCompletionListener.class);
+    private static final String PARTITION_SEPARATOR = ":";
 
     private final AtomicLong duplicatesCount = new AtomicLong(0);
+    private final AtomicLong filteredDuplicatesCount = new AtomicLong(0);
+    private final DuplicateLogWriter duplicateLogWriter;
+
+    public JobCompletionListener(DuplicateLogWriter duplicateLogWriter) {
+        this.duplicateLogWriter = duplicateLogWriter;
+    }
 
     public void incrementDuplicates() {
         duplicatesCount.incrementAndGet();
     }
 
+    public void addDuplicates(long count) {
+        duplicatesCount.addAndGet(count);
+    }
+
     public long getDuplicatesCount() {
         return duplicatesCount.get();
     }
 
+    /**
+     * Counts duplicates the processor dropped before writing; unlike those dropped by
+     * {@code INSERT IGNORE} they are not part of the write count.
+     */
+    public void addFilteredDuplicates(long count) {
+        filteredDuplicatesCount.addAndGet(count);
+    }
+
+    public long getFilteredDuplicatesCount() {
+        return filteredDuplicatesCount.get();
+    }
+
     public void resetDuplicatesCount() {
         duplicatesCount.set(0);
+        filteredDuplicatesCount.set(0);
+    }
+
+    @Override
+    @BeforeJob
+    public void beforeJob(JobExecution jobExecution) {
+        resetDuplicatesCount();
+        duplicateLogWriter.initialize(jobExecution.getId());
     }
 
     @Override
     @AfterJob
     public void afterJob(JobExecution jobExecution) {
+        duplicateLogWriter.close();
+
         long totalRead = 0;
         long totalWritten = 0;
         long totalSkipped = 0;
 
         for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+            if (isPartitionWorker(stepExecution)) {
+                // Already aggregated into the counts of the partitioned manager step
+                continue;
+            }
             totalRead += stepExecution.getReadCount();
             totalWritten += stepExecution.getWriteCount();
             totalSkipped += stepExecution.getSkipCount();
         }
 
-        long duplicates = duplicatesCount.get();
+        // Rows dropped by INSERT IGNORE are part of the write count of the step, rows
+        // dropped by the duplicate pre-filter were filtered and never written
+        long ignored = duplicatesCount.get();
+        long duplicates = ignored + filteredDuplicatesCount.get();
+        long inserts = totalWritten - ignored;
         long errors = totalSkipped;
         
         log.info("Job Summary:");
         log.info("- Total records processed: {}", totalRead);
-        log.info("- Successful inserts: {}", totalWritten);
+        log.info("- Successful inserts: {}", inserts);
         log.info("- Duplicates ignored: {}", duplicates);
         log.info("- Errors: {}", errors);
+        // The counts are kept until the next job run starts
+    }
 
-        // Reset for next job run
-        resetDuplicatesCount();
+    private static boolean isPartitionWorker(StepExecution stepExecution) {
+        return stepExecution.getStepName().contains(PARTITION_SEPARATOR);
     }
 }
@@ -1,17 +1,70 @@
 package org.example.etl2.batch.listener;
 
+import org.example.etl2.batch.deadletter.DeadLetterRecord;
+import org.example.etl2.batch.deadletter.DeadLetterStore;
 import org.example.etl2.model.TemperatureReading;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.listener.ItemReadListener;
 import org.springframework.batch.core.listener.SkipListener;
+import org.springframework.batch.core.listener.StepExecutionListener;
+import org.springframework.batch.core.step.StepExecution;
 import org.springframework.batch.infrastructure.item.file.FlatFileParseException;
-import org.springframework.stereotype.Component;
 
-@Component
-public class SkipItemListener implements SkipListener<TemperatureReading, TemperatureReading> {
+import java.time.format.DateTimeFormatter;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Logs skipped records. With {@code batch.dead-letter.enabled} they are also stored in
+ * the {@link DeadLetterStore} for replay: rows skipped in read with their raw line,
+ * file and line number, rows skipped in process or write as a CSV line rebuilt from the
+ * reading, whose file and line are not known anymore.
+ * <p>
+ * The file of a row skipped in read is taken from the step's reader when the read
+ * fails, as read skips are only reported once the whole chunk was read, when a
+ * multi-file reader may have moved on to the next file. Keeps these files per step
+ * execution, so it has to be step scoped when steps run in parallel. Must be registered
+ * as skip, item read and step execution listener of the step; files of failed reads
+ * that were never reported as skipped are dropped once the step ended.
+ */
+public class SkipItemListener implements SkipListener<TemperatureReading, TemperatureReading>,
+        ItemReadListener<TemperatureReading>, StepExecutionListener {
 
     private static final Logger log = LoggerFactory.getLogger(SkipItemListener.class);
 
+    private final DeadLetterStore deadLetterStore;
+    private final boolean deadLetters;
+    private final Supplier<String> currentFile;
+    /** Files of the failed reads not reported as skipped yet. */
+    private final Map<Throwable, String> failedReadFiles = new IdentityHashMap<>();
+
+    /**
+     * @param currentFile description of the file the step's reader currently reads, or {@code null}
+     */
+    public SkipItemListener(DeadLetterStore deadLetterStore, boolean deadLetters, Supplier<String> currentFile) {
+        this.deadLetterStore = deadLetterStore;
+        this.deadLetters = deadLetters;
+        this.currentFile = currentFile;
+    }
+
+    @Override
+    public void onReadError(Exception ex) {
+        if (deadLetters && ex instanceof FlatFileParseException) {
+            String file = currentFile.get();
+            failedReadFiles.put(ex, file != null ? file : "");
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        // Failed reads that were not skipped, as the step failed on them or rolled back their chunk
+        failedReadFiles.clear();
+        return null;
+    }
+
     @Override
     public void onSkipInRead(Throwable t) {
         if (t instanceof FlatFileParseException parseException) {
@@ -19,6 +72,12 @@ public class SkipItemListener implements SkipListener<TemperatureReading, Temper
                     parseException.getLineNumber(),
                     parseException.getInput(),
                     parseException.getMessage());
+            if (deadLetters && parseException.getInput() != null) {
+                Throwable cause = parseException.getCause() != null ? parseException.getCause() : parseException;
+                String sourceFile = failedReadFiles.remove(parseException);
+                deadLetterStore.append(new DeadLetterRecord(sourceFile != null ? sourceFile : "", parseException.getLineNumber(),
+                        cause.getClass().getName(), parseException.getInput()));
+            }
         } else {
             log.error("Skipped record in read - Error: {}", t.getMessage());
         }
@@ -27,10 +86,20 @@ public class SkipItemListener implements SkipListener<TemperatureReading, Temper
     @Override
     public void onSkipInProcess(TemperatureReading item, Throwable t) {
         log.error("Skipped record in process - Item: {}, Error: {}", item, t.getMessage());
+        store(item, t);
     }
 
     @Override
     public void onSkipInWrite(TemperatureReading item, Throwable t) {
         log.error("Skipped record in write - Item: {}, Error: {}", item, t.getMessage());
+        store(item, t);
+    }
+
+    private void store(TemperatureReading item, Throwable t) {
+        if (deadLetters) {
+            String line = item.name() + "," + DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(item.datetime())
+                    + "," + item.temp().toPlainString();
+            deadLetterStore.append(new DeadLetterRecord("", 0, t.getClass().getName(), line));
+        }
     }
 }
@@ -0,0 +1,157 @@
+package org.example.etl2.batch.listener;
+
+import org.example.etl2.model.TemperatureReading;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.listener.ChunkListener;
+import org.springframework.batch.core.listener.ItemProcessListener;
+import org.springframework.batch.core.listener.ItemReadListener;
+import org.springframework.batch.core.listener.ItemWriteListener;
+import org.springframework.batch.core.listener.SkipListener;
+import org.springframework.batch.core.listener.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.core.io.Resource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Records the reads, processing, writes, commits and skips of a chunk step in the
+ * {@link ImportMetrics} of the file being read. The file is taken from the reader
+ * when a read is sampled, so after a switch to the next file of a multi-file reader a
+ * few rows may still be counted for the previous one. The meters of the files are
+ * released when the step ends.
+ * <p>
+ * Keeps the timing of the current item per step execution, so it has to be step scoped
+ * when steps run in parallel. Must be registered as step, chunk, item and skip listener
+ * of the step it measures.
+ */
+public class StageMetricsListener implements StepExecutionListener, ChunkListener,
+        ItemReadListener<TemperatureReading>, ItemProcessListener<TemperatureReading, TemperatureReading>,
+        ItemWriteListener<TemperatureReading>, SkipListener<TemperatureReading, TemperatureReading> {
+
+    private final ImportMetrics metrics;
+    private final Supplier<Resource> currentFile;
+    private final int sampleMask;
+
+    private ImportMetrics.FileMeters file;
+    private final Map<String, ImportMetrics.FileMeters> acquired = new HashMap<>();
+    private Resource resource;
+    private long reads;
+    private long processes;
+    private long readStart;
+    private long processStart;
+    private long writeStart;
+    private long commitStart;
+
+    /**
+     * @param currentFile the file the step's reader currently reads, or {@code null}
+     */
+    public StageMetricsListener(ImportMetrics metrics, Supplier<Resource> currentFile) {
+        this.metrics = metrics;
+        this.currentFile = currentFile;
+        this.sampleMask = metrics.sampleMask();
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        switchFile();
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        metrics.bind(null);
+        acquired.values().forEach(metrics::release);
+        acquired.clear();
+        return null;
+    }
+
+    @Override
+    public void beforeRead() {
+        if ((reads & sampleMask) == 0) {
+            readStart = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterRead(TemperatureReading item) {
+        if ((reads++ & sampleMask) == 0) {
+            long elapsed = System.nanoTime() - readStart;
+            if (currentFile.get() != resource) {
+                switchFile();
+            }
+            file.readTime.record(elapsed, TimeUnit.NANOSECONDS);
+        }
+        file.read.increment();
+    }
+
+    @Override
+    public void beforeProcess(TemperatureReading item) {
+        if ((processes & sampleMask) == 0) {
+            processStart = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterProcess(TemperatureReading item, TemperatureReading result) {
+        if ((processes++ & sampleMask) == 0) {
+            file.processTime.record(System.nanoTime() - processStart, TimeUnit.NANOSECONDS);
+        }
+        (result != null ? file.processed : file.filtered).increment();
+    }
+
+    @Override
+    public void beforeWrite(Chunk<? extends TemperatureReading> items) {
+        writeStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterWrite(Chunk<? extends TemperatureReading> items) {
+        commitStart = System.nanoTime();
+        file.writeTime.record(commitStart - writeStart, TimeUnit.NANOSECONDS);
+        file.written.add(items.size());
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        commitStart = 0;
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        // Without a write, as for a chunk whose rows were all filtered, there is no commit to time
+        if (commitStart != 0) {
+            file.commitTime.record(System.nanoTime() - commitStart, TimeUnit.NANOSECONDS);
+        }
+        metrics.chunkCompleted();
+    }
+
+    @Override
+    public void onSkipInRead(Throwable t) {
+        file.skippedInRead.increment();
+    }
+
+    @Override
+    public void onSkipInProcess(TemperatureReading item, Throwable t) {
+        file.skippedInProcess.increment();
+    }
+
+    @Override
+    public void onSkipInWrite(TemperatureReading item, Throwable t) {
+        file.skippedInWrite.increment();
+    }
+
+    private void switchFile() {
+        resource = currentFile.get();
+        String name = resource != null ? resource.getFilename() : null;
+        file = acquired.get(name);
+        if (file == null) {
+            file = metrics.acquire(name);
+            acquired.put(name, file);
+        }
+        metrics.bind(file);
+    }
+}
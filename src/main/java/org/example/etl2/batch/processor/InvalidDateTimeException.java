@@ -1,6 +1,6 @@
 package org.example.etl2.batch.processor;
 
-public class InvalidDateTimeException extends RuntimeException {
+public class InvalidDateTimeException extends InvalidReadingException {
 
     private final String datetimeString;
 
@@ -0,0 +1,12 @@
+package org.example.etl2.batch.processor;
+
+/**
+ * Base class of the exceptions for readings that cannot be stored. The step skips them
+ * in the processor without rolling back the chunk.
+ */
+public class InvalidReadingException extends RuntimeException {
+
+    public InvalidReadingException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.etl2.batch.processor;
+
+public class InvalidStationNameException extends InvalidReadingException {
+
+    private final String name;
+
+    public InvalidStationNameException(String name, String reason) {
+        super(String.format("Invalid station name '%s': %s", name, reason));
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -2,16 +2,33 @@ package org.example.etl2.batch.processor;
 
 import java.math.BigDecimal;
 
-public class InvalidTemperatureException extends RuntimeException {
+public class InvalidTemperatureException extends InvalidReadingException {
 
+    private final String temperatureString;
     private final BigDecimal temperature;
 
     public InvalidTemperatureException(BigDecimal temperature, String reason) {
-        super(String.format("Invalid temperature value '%s': %s", temperature, reason));
+        this(String.valueOf(temperature), temperature, reason);
+    }
+
+    public InvalidTemperatureException(String temperatureString, String reason) {
+        this(temperatureString, null, reason);
+    }
+
+    private InvalidTemperatureException(String temperatureString, BigDecimal temperature, String reason) {
+        super(String.format("Invalid temperature value '%s': %s", temperatureString, reason));
+        this.temperatureString = temperatureString;
         this.temperature = temperature;
     }
 
+    /**
+     * @return the temperature, or {@code null} if the value could not be parsed
+     */
     public BigDecimal getTemperature() {
         return temperature;
     }
+
+    public String getTemperatureString() {
+        return temperatureString;
+    }
 }
@@ -0,0 +1,178 @@
+package org.example.etl2.batch.processor;
+
+import org.example.etl2.batch.writer.DuplicateReporter;
+import org.example.etl2.model.TemperatureReading;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.job.JobExecution;
+import org.springframework.batch.core.listener.JobExecutionListener;
+import org.springframework.batch.infrastructure.item.ItemProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drops readings whose {@code (name, datetime)} already exists in {@code temperature_data}
+ * before they reach the writer, saving the round trip and unique index probe that
+ * {@code INSERT IGNORE} would spend on them.
+ * <p>
+ * Existing rows are kept as one bitmap per station and day, with one bit per second.
+ * A bitmap is loaded from the table the first time a reading of that station and day
+ * is seen, so only the time window covered by the input is loaded. The bitmaps are
+ * exact: a reading is only dropped if the row is in the table. Once the memory budget
+ * is used up, readings of days not loaded yet pass through to the writer.
+ * <p>
+ * Must be registered as a job listener, so the bitmaps are dropped before each job run.
+ */
+@Component
+public class KnownDuplicateFilter implements ItemProcessor<TemperatureReading, TemperatureReading>, JobExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(KnownDuplicateFilter.class);
+
+    private static final int SECONDS_PER_DAY = 86_400;
+    private static final int WORDS_PER_DAY = SECONDS_PER_DAY / Long.SIZE;
+    private static final long BYTES_PER_DAY = WORDS_PER_DAY * (long) Long.BYTES;
+    /** Marks a day that was not loaded because the memory budget was used up. */
+    private static final long[] NOT_LOADED = new long[0];
+
+    private static final String EXISTING_ROWS_SQL = """
+            SELECT t.datetime FROM temperature_data t
+            JOIN station s ON s.id = t.station_id
+            WHERE s.name = ? AND t.datetime >= ? AND t.datetime < ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DuplicateReporter duplicateReporter;
+    private final long maxBytes;
+
+    private final Map<String, StationDays> stations = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    public KnownDuplicateFilter(
+            JdbcTemplate jdbcTemplate,
+            DuplicateReporter duplicateReporter,
+            @Value("${batch.dedup.prefilter.max-memory:64MB}") DataSize maxMemory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.duplicateReporter = duplicateReporter;
+        this.maxBytes = maxMemory.toBytes();
+    }
+
+    @Override
+    public TemperatureReading process(TemperatureReading item) {
+        if (item.name() == null || item.datetime() == null) {
+            // Left to TemperatureItemProcessor
+            return item;
+        }
+
+        long epochSecond = item.datetime().toEpochSecond(ZoneOffset.UTC);
+        long day = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        int second = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+
+        long[] bits = stations.computeIfAbsent(item.name(), name -> new StationDays()).get(item.name(), day);
+        if (bits != NOT_LOADED && (bits[second >>> 6] & (1L << second)) != 0) {
+            duplicateReporter.reportFilteredDuplicate(item);
+            return null;
+        }
+        return item;
+    }
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        stations.clear();
+        usedBytes.set(0);
+    }
+
+    private long[] load(String name, long day) {
+        if (usedBytes.addAndGet(BYTES_PER_DAY) > maxBytes) {
+            usedBytes.addAndGet(-BYTES_PER_DAY);
+            log.debug("Duplicate pre-filter memory budget used up, not loading {} day {}", name, day);
+            return NOT_LOADED;
+        }
+
+        long[] bits = new long[WORDS_PER_DAY];
+        LocalDateTime from = LocalDateTime.ofEpochSecond(day * SECONDS_PER_DAY, 0, ZoneOffset.UTC);
+        jdbcTemplate.query(EXISTING_ROWS_SQL, rs -> {
+            int second = rs.getObject(1, LocalDateTime.class).toLocalTime().toSecondOfDay();
+            bits[second >>> 6] |= 1L << second;
+        }, name, from, from.plusDays(1));
+        return bits;
+    }
+
+    /**
+     * Loaded days of one station, in an open addressing table keyed by epoch day. A day is
+     * loaded without holding the lock, so threads reading other days of the station are
+     * not held up by the query; if two threads load the same day, the first one kept wins.
+     */
+    private final class StationDays {
+
+        private long[] days = new long[8];
+        private long[][] bitmaps = new long[8][];
+        private int size;
+
+        long[] get(String name, long day) {
+            long[] bits = find(day);
+            if (bits != null) {
+                return bits;
+            }
+
+            long[] loaded = load(name, day);
+            synchronized (this) {
+                bits = find(day);
+                if (bits != null) {
+                    if (loaded != NOT_LOADED) {
+                        usedBytes.addAndGet(-BYTES_PER_DAY);
+                    }
+                    return bits;
+                }
+                int slot = slot(day);
+                days[slot] = day;
+                bitmaps[slot] = loaded;
+                if (++size * 2 > days.length) {
+                    grow();
+                }
+                return loaded;
+            }
+        }
+
+        private synchronized long[] find(long day) {
+            return bitmaps[slot(day)];
+        }
+
+        /**
+         * @return the slot holding the day, or the free slot to put it in
+         */
+        private int slot(long day) {
+            int mask = days.length - 1;
+            int slot = Long.hashCode(day * 0x9E3779B97F4A7C15L) & mask;
+            while (bitmaps[slot] != null && days[slot] != day) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldDays = days;
+            long[][] oldBitmaps = bitmaps;
+            days = new long[oldDays.length * 2];
+            bitmaps = new long[oldDays.length * 2][];
+            int mask = days.length - 1;
+            for (int i = 0; i < oldDays.length; i++) {
+                if (oldBitmaps[i] != null) {
+                    int slot = Long.hashCode(oldDays[i] * 0x9E3779B97F4A7C15L) & mask;
+                    while (bitmaps[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    days[slot] = oldDays[i];
+                    bitmaps[slot] = oldBitmaps[i];
+                }
+            }
+        }
+    }
+}
@@ -3,14 +3,92 @@ package org.example.etl2.batch.processor;
 import org.example.etl2.model.TemperatureReading;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.job.JobExecution;
+import org.springframework.batch.core.listener.JobExecutionListener;
 import org.springframework.batch.infrastructure.item.ItemProcessor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Filters readings with missing values and rejects readings that break a validation
+ * rule or that the table cannot store, so that they are skipped here instead of
+ * failing the write of a whole chunk.
+ * <p>
+ * The rules are resolved once from the configuration: a temperature range, optionally
+ * overridden per station, a datetime window ending a configured time after the job
+ * started, and a maximum rate of change against the previous reading of the same
+ * station. Checking a reading compares it with these precomputed bounds and allocates
+ * nothing unless the reading is rejected.
+ * <p>
+ * The previous reading of a station is the latest by datetime among the readings of
+ * committed chunks, plus those accepted so far in the current chunk, so a chunk that is
+ * rolled back and processed again is compared with the same readings. As this state is
+ * shared by all steps, the rate of change cannot be checked by a partitioned import.
+ * <p>
+ * Must be registered as a job listener, so the datetime window and the previous readings
+ * are reset before each job run.
+ */
 @Component
-public class TemperatureItemProcessor implements ItemProcessor<TemperatureReading, TemperatureReading> {
+public class TemperatureItemProcessor implements ItemProcessor<TemperatureReading, TemperatureReading>,
+        JobExecutionListener {
 
     private static final Logger log = LoggerFactory.getLogger(TemperatureItemProcessor.class);
 
+    /** Length of {@code station.name}, in characters. */
+    private static final int MAX_NAME_LENGTH = 255;
+    /** Smallest absolute value that rounds out of {@code DECIMAL(5,1)}. */
+    private static final BigDecimal TEMPERATURE_LIMIT = new BigDecimal("9999.95");
+    private static final LocalDateTime MIN_DATETIME = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_DATETIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final TemperatureRange defaultRange;
+    private final Map<String, TemperatureRange> stationRanges;
+    private final LocalDateTime earliest;
+    private final Duration maxFuture;
+    private final double maxChangePerSecond;
+
+    /** Latest reading of each station in the committed chunks. */
+    private final Map<String, PreviousReading> previousReadings = new ConcurrentHashMap<>();
+    private volatile LocalDateTime latest;
+
+    public TemperatureItemProcessor(
+            @Value("${batch.validation.temperature.min:-90.0}") BigDecimal minTemperature,
+            @Value("${batch.validation.temperature.max:60.0}") BigDecimal maxTemperature,
+            @Value("${batch.validation.station-ranges:}") String stationRanges,
+            @Value("${batch.validation.datetime.earliest:1900-01-01T00:00:00}") String earliest,
+            @Value("${batch.validation.datetime.max-future:1d}") Duration maxFuture,
+            @Value("${batch.validation.max-change-per-hour:0}") BigDecimal maxChangePerHour) {
+        this.defaultRange = new TemperatureRange(minTemperature, maxTemperature);
+        this.stationRanges = parseStationRanges(stationRanges);
+        this.earliest = max(LocalDateTime.parse(earliest), MIN_DATETIME);
+        this.maxFuture = maxFuture;
+        this.maxChangePerSecond = maxChangePerHour.doubleValue() / 3600;
+        this.latest = latest(maxFuture);
+    }
+
+    /**
+     * @return whether readings are compared with the previous reading of their station
+     */
+    public boolean checksRateOfChange() {
+        return maxChangePerSecond > 0;
+    }
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        latest = latest(maxFuture);
+        previousReadings.clear();
+    }
+
     @Override
     public TemperatureReading process(TemperatureReading item) throws Exception {
         if (item.name() == null || item.name().isBlank()) {
@@ -28,6 +106,113 @@ public class TemperatureItemProcessor implements ItemProcessor<TemperatureReadin
             return null;
         }
 
+        String name = item.name();
+        if (name.length() > MAX_NAME_LENGTH && name.codePointCount(0, name.length()) > MAX_NAME_LENGTH) {
+            throw new InvalidStationNameException(name, "longer than " + MAX_NAME_LENGTH + " characters");
+        }
+
+        BigDecimal temp = item.temp();
+        TemperatureRange range = stationRanges.isEmpty() ? defaultRange : stationRanges.getOrDefault(name, defaultRange);
+        if (temp.compareTo(range.min()) < 0 || temp.compareTo(range.max()) > 0) {
+            throw new InvalidTemperatureException(temp, "outside " + range.min() + " to " + range.max());
+        }
+        if (temp.abs().compareTo(TEMPERATURE_LIMIT) >= 0) {
+            throw new InvalidTemperatureException(temp, "does not fit DECIMAL(5,1)");
+        }
+
+        LocalDateTime datetime = item.datetime();
+        if (datetime.isBefore(earliest) || datetime.isAfter(latest)) {
+            throw new InvalidDateTimeException(datetime.toString(), "outside " + earliest + " to " + latest);
+        }
+
+        if (maxChangePerSecond > 0) {
+            checkRateOfChange(name, datetime, temp);
+        }
         return item;
     }
+
+    private void checkRateOfChange(String name, LocalDateTime datetime, BigDecimal temp) {
+        long second = datetime.toEpochSecond(ZoneOffset.UTC);
+        double value = temp.doubleValue();
+        Map<String, PreviousReading> chunkReadings = chunkReadings();
+        PreviousReading previous = chunkReadings != null ? chunkReadings.get(name) : null;
+        if (previous == null) {
+            previous = previousReadings.get(name);
+        }
+        if (previous != null && previous.epochSecond() != second) {
+            double change = Math.abs(value - previous.temp());
+            if (change > maxChangePerSecond * Math.abs(second - previous.epochSecond())) {
+                throw new InvalidTemperatureException(temp, "changed by " + change + " since "
+                        + LocalDateTime.ofEpochSecond(previous.epochSecond(), 0, ZoneOffset.UTC));
+            }
+        }
+        if (previous == null || second > previous.epochSecond()) {
+            // A reading older than the previous one does not move it back
+            (chunkReadings != null ? chunkReadings : previousReadings).put(name, new PreviousReading(second, value));
+        }
+    }
+
+    /**
+     * @return the readings accepted in the current chunk, which become the previous readings
+     * once it commits, or {@code null} outside a transaction
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, PreviousReading> chunkReadings() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        var chunkReadings = (Map<String, PreviousReading>) TransactionSynchronizationManager.getResource(this);
+        if (chunkReadings == null) {
+            Map<String, PreviousReading> created = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TemperatureItemProcessor.this);
+                    if (status == STATUS_COMMITTED) {
+                        // Readings of the chunk are never older than the committed ones they replace
+                        previousReadings.putAll(created);
+                    }
+                }
+            });
+            chunkReadings = created;
+        }
+        return chunkReadings;
+    }
+
+    /**
+     * Parses {@code name=min..max} entries separated by commas.
+     */
+    private static Map<String, TemperatureRange> parseStationRanges(String value) {
+        Map<String, TemperatureRange> ranges = new HashMap<>();
+        for (String entry : value.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int equals = entry.lastIndexOf('=');
+            int dots = entry.indexOf("..", equals + 1);
+            if (equals < 1 || dots < 0) {
+                throw new IllegalArgumentException("Invalid station range '" + entry + "', expected name=min..max");
+            }
+            ranges.put(entry.substring(0, equals).trim(), new TemperatureRange(
+                    new BigDecimal(entry.substring(equals + 1, dots).trim()),
+                    new BigDecimal(entry.substring(dots + 2).trim())));
+        }
+        return Map.copyOf(ranges);
+    }
+
+    private static LocalDateTime latest(Duration maxFuture) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        return MAX_DATETIME.minus(maxFuture).isAfter(now) ? now.plus(maxFuture) : MAX_DATETIME;
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private record TemperatureRange(BigDecimal min, BigDecimal max) {
+    }
+
+    private record PreviousReading(long epochSecond, double temp) {
+    }
 }
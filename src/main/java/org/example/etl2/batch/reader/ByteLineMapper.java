@@ -0,0 +1,23 @@
+package org.example.etl2.batch.reader;
+
+import org.springframework.batch.infrastructure.item.file.LineMapper;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Maps the raw bytes of a line, without its line terminator, to an item. The byte
+ * array is reused by the caller and must not be retained.
+ */
+@FunctionalInterface
+public interface ByteLineMapper<T> {
+
+    T mapLine(byte[] line, int length, int lineNumber) throws Exception;
+
+    /**
+     * Adapts a {@link LineMapper} by decoding every line as UTF-8.
+     */
+    static <T> ByteLineMapper<T> decoding(LineMapper<T> lineMapper) {
+        return (line, length, lineNumber) ->
+                lineMapper.mapLine(new String(line, 0, length, StandardCharsets.UTF_8), lineNumber);
+    }
+}
@@ -0,0 +1,335 @@
+package org.example.etl2.batch.reader;
+
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.batch.infrastructure.item.ItemStreamException;
+import org.springframework.batch.infrastructure.item.file.FlatFileItemReader;
+import org.springframework.batch.infrastructure.item.file.FlatFileParseException;
+import org.springframework.batch.infrastructure.item.file.LineMapper;
+import org.springframework.batch.infrastructure.item.file.ResourceAwareItemReaderItemStream;
+import org.springframework.batch.infrastructure.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads the lines of a byte range {@code [startOffset, endOffset)} of a file. The range
+ * boundaries are expected to be aligned to line starts, as produced by
+ * {@link InputFilePartitioner}. Header lines are only skipped when the range starts at
+ * the beginning of the file. Lines are numbered from the number of lines before the
+ * range, so parse errors report the line of the file. Comment lines, starting with one
+ * of the comment prefixes, are skipped as {@link FlatFileItemReader} skips them.
+ * <p>
+ * The byte offset of the next line is saved in the execution context, so a restarted
+ * step seeks straight to it instead of re-reading the range from the start.
+ * <p>
+ * Without explicit offsets the whole file is read, which makes the reader usable as the
+ * delegate of a {@link org.springframework.batch.infrastructure.item.file.MultiResourceItemReader}.
+ * Lines are read into a reused byte buffer and handed to a {@link ByteLineMapper}, so no
+ * line string is created unless the mapper asks for one.
+ * <p>
+ * With a {@link FileOffsetStore} the reader tails a growing file: it starts where the
+ * last import of the file stopped, reads only the lines that are complete when the file
+ * is opened, and reports the offset it reached at the end of the file to the store.
+ * <p>
+ * Gzip compressed files are decompressed while they are read. Offsets then count
+ * decompressed bytes; a restart reads up to the saved offset again instead of seeking,
+ * and the file can be neither split into byte ranges nor tailed.
+ */
+public class ByteRangeItemReader<T> extends AbstractItemCountingItemStreamItemReader<T>
+        implements ResourceAwareItemReaderItemStream<T> {
+
+    private static final String OFFSET_KEY = "offset";
+    private static final String LINE_COUNT_KEY = "line.count";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int ALIGNMENT_BUFFER_SIZE = 8 * 1024;
+
+    private final ByteLineMapper<T> lineMapper;
+
+    private Resource resource;
+    private long startOffset;
+    private long endOffset = Long.MAX_VALUE;
+    private int startLine;
+    private int linesToSkip;
+    private byte[][] comments = encode(FlatFileItemReader.DEFAULT_COMMENT_PREFIXES);
+    private FileOffsetStore offsetStore;
+    private long stepExecutionId;
+
+    private Path file;
+    private boolean compressed;
+    private FileChannel fileChannel;
+    private ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private byte[] lineBuffer;
+    private long rangeEnd;
+    private long position;
+    private int lineCount;
+
+    public ByteRangeItemReader(ByteLineMapper<T> lineMapper) {
+        this.lineMapper = lineMapper;
+    }
+
+    public ByteRangeItemReader(LineMapper<T> lineMapper) {
+        this(ByteLineMapper.decoding(lineMapper));
+    }
+
+    @Override
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+
+    public void setStartOffset(long startOffset) {
+        this.startOffset = startOffset;
+    }
+
+    public void setEndOffset(long endOffset) {
+        this.endOffset = endOffset;
+    }
+
+    /**
+     * @param startLine number of lines in the file before the start offset
+     */
+    public void setStartLine(long startLine) {
+        this.startLine = Math.toIntExact(startLine);
+    }
+
+    public void setLinesToSkip(int linesToSkip) {
+        this.linesToSkip = linesToSkip;
+    }
+
+    /**
+     * @param comments prefixes of the lines to skip, {@code #} by default
+     */
+    public void setComments(String... comments) {
+        this.comments = encode(comments);
+    }
+
+    /**
+     * Tails whole files from the offsets in the store, reporting the offsets reached for
+     * the given step execution.
+     */
+    public void setOffsetStore(FileOffsetStore offsetStore, long stepExecutionId) {
+        this.offsetStore = offsetStore;
+        this.stepExecutionId = stepExecutionId;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        try {
+            compressed = CompressedInput.isCompressed(resource);
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open " + resource.getDescription(), e);
+        }
+        long offset = startOffset;
+        int lines = startLine;
+        if (offsetStore != null && !compressed) {
+            FileOffsetStore.FileOffset stored = resume();
+            offset = stored.byteOffset();
+            lines = stored.lineCount();
+        }
+        position = executionContext.getLong(getExecutionContextKey(OFFSET_KEY), offset);
+        lineCount = executionContext.getInt(getExecutionContextKey(LINE_COUNT_KEY), lines);
+        super.open(executionContext);
+    }
+
+    private FileOffsetStore.FileOffset resume() {
+        try (FileChannel fileChannel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ)) {
+            return offsetStore.resume(resource.getFile().toPath(), fileChannel);
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to read the stored offset of " + resource.getDescription(), e);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        if (isSaveState()) {
+            executionContext.putLong(getExecutionContextKey(OFFSET_KEY), position);
+            executionContext.putInt(getExecutionContextKey(LINE_COUNT_KEY), lineCount);
+        }
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        file = resource.getFile().toPath();
+        buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+        lineBuffer = new byte[256];
+        if (compressed) {
+            if (startOffset > 0 || endOffset != Long.MAX_VALUE) {
+                throw new IllegalStateException("Compressed file cannot be read in byte ranges: " + resource.getDescription());
+            }
+            channel = Channels.newChannel(CompressedInput.open(file));
+            rangeEnd = Long.MAX_VALUE;
+            skip(position);
+        } else {
+            fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+            channel = fileChannel;
+            rangeEnd = Math.min(endOffset, fileChannel.size());
+            if (offsetStore != null) {
+                // A line still being written is left for the next import
+                rangeEnd = completeLinesEnd(rangeEnd);
+            }
+            fileChannel.position(position);
+        }
+
+        if (position == 0) {
+            for (int i = 0; i < linesToSkip && readLine() >= 0; i++) {
+                lineCount++;
+            }
+        }
+    }
+
+    @Override
+    protected T doRead() throws Exception {
+        int length;
+        do {
+            length = readLine();
+            if (length < 0) {
+                if (offsetStore != null && !compressed) {
+                    offsetStore.reached(stepExecutionId, file, fileChannel, position, lineCount);
+                }
+                return null;
+            }
+            lineCount++;
+        } while (isComment(length));
+
+        try {
+            return lineMapper.mapLine(lineBuffer, length, lineCount);
+        } catch (Exception e) {
+            String line = new String(lineBuffer, 0, length, StandardCharsets.UTF_8);
+            throw new FlatFileParseException("Parsing error at line: " + lineCount + " in resource=["
+                    + resource.getDescription() + "], range=[" + startOffset + "-" + rangeEnd
+                    + "], input=[" + line + "]", e, line, lineCount);
+        }
+    }
+
+    /** Jumping is done by seeking to the saved offset in {@link #open(ExecutionContext)}. */
+    @Override
+    protected void jumpToItem(int itemIndex) {
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            fileChannel = null;
+        }
+    }
+
+    /**
+     * Reads and drops the bytes before the saved offset of a stream that cannot seek.
+     */
+    private void skip(long bytes) throws IOException {
+        long remaining = bytes;
+        while (remaining > 0) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), remaining));
+            int read = channel.read(buffer);
+            if (read < 0) {
+                throw new IOException("Saved offset " + bytes + " is beyond the end of " + resource.getDescription());
+            }
+            remaining -= read;
+        }
+        buffer.clear().flip();
+    }
+
+    /**
+     * @return the offset after the last newline before {@code end}, or the position if
+     *         there is none
+     */
+    private long completeLinesEnd(long end) throws IOException {
+        ByteBuffer tail = ByteBuffer.allocate(ALIGNMENT_BUFFER_SIZE);
+        long chunkEnd = end;
+        while (chunkEnd > position) {
+            long chunkStart = Math.max(position, chunkEnd - tail.capacity());
+            tail.clear().limit((int) (chunkEnd - chunkStart));
+            while (tail.hasRemaining() && fileChannel.read(tail, chunkStart + tail.position()) > 0) {
+                // Positional reads do not move the channel
+            }
+            for (int i = tail.position() - 1; i >= 0; i--) {
+                if (tail.get(i) == '\n') {
+                    return chunkStart + i + 1;
+                }
+            }
+            chunkEnd = chunkStart;
+        }
+        return position;
+    }
+
+    /**
+     * Reads the next line of the range into {@link #lineBuffer}, without its line
+     * terminator.
+     *
+     * @return the length of the line, or -1 at the end of the range
+     */
+    private int readLine() throws IOException {
+        if (position >= rangeEnd) {
+            return -1;
+        }
+
+        int length = 0;
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                int read = channel.read(buffer);
+                buffer.flip();
+                if (read <= 0) {
+                    break;
+                }
+            }
+
+            byte[] bytes = buffer.array();
+            int start = buffer.position();
+            int limit = buffer.limit();
+            int newline = start;
+            while (newline < limit && bytes[newline] != '\n') {
+                newline++;
+            }
+
+            int chunk = newline - start;
+            if (length + chunk > lineBuffer.length) {
+                lineBuffer = Arrays.copyOf(lineBuffer, Math.max(lineBuffer.length * 2, length + chunk));
+            }
+            System.arraycopy(bytes, start, lineBuffer, length, chunk);
+            length += chunk;
+
+            if (newline < limit) {
+                buffer.position(newline + 1);
+                position += chunk + 1;
+                return stripCarriageReturn(length);
+            }
+            buffer.position(limit);
+            position += chunk;
+        }
+
+        return length > 0 ? stripCarriageReturn(length) : -1;
+    }
+
+    private boolean isComment(int length) {
+        for (byte[] prefix : comments) {
+            if (length >= prefix.length && Arrays.equals(lineBuffer, 0, prefix.length, prefix, 0, prefix.length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[][] encode(String[] prefixes) {
+        byte[][] encoded = new byte[prefixes.length][];
+        for (int i = 0; i < prefixes.length; i++) {
+            encoded[i] = prefixes[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    private int stripCarriageReturn(int length) {
+        return length > 0 && lineBuffer[length - 1] == '\r' ? length - 1 : length;
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.etl2.batch.reader;
+
+import org.springframework.batch.infrastructure.item.file.BufferedReaderFactory;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Recognises gzip compressed input files by their magic bytes, whatever their name, and
+ * opens them as a stream of the decompressed CSV. The data is inflated while it is
+ * parsed, so compressed files need no unpacked copy on disk.
+ * <p>
+ * Compressed files can only be read from the start, so they are neither split into byte
+ * ranges nor tailed. Zstandard files are recognised as well, but rejected: the JDK has
+ * no decoder for them.
+ */
+final class CompressedInput {
+
+    private static final int GZIP_MAGIC = 0x1f8b;
+    private static final int ZSTD_MAGIC = 0x28b52ffd;
+    private static final int INFLATE_BUFFER_SIZE = 64 * 1024;
+
+    private CompressedInput() {
+    }
+
+    static boolean isCompressed(Path file) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(4);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (magic.hasRemaining() && channel.read(magic) > 0) {
+                // A file may return its first bytes in more than one read
+            }
+        }
+        if (magic.position() == 4 && magic.getInt(0) == ZSTD_MAGIC) {
+            throw new IOException("Zstandard compressed input is not supported, recompress " + file + " with gzip");
+        }
+        return magic.position() >= 2 && Short.toUnsignedInt(magic.getShort(0)) == GZIP_MAGIC;
+    }
+
+    static boolean isCompressed(Resource resource) throws IOException {
+        return isCompressed(resource.getFile().toPath());
+    }
+
+    /**
+     * @return the decompressed content of a compressed file, read through a buffer of
+     *         {@value #INFLATE_BUFFER_SIZE} bytes
+     */
+    static InputStream open(Path file) throws IOException {
+        return new GZIPInputStream(Files.newInputStream(file), INFLATE_BUFFER_SIZE);
+    }
+
+    /**
+     * Reader factory for the flat file reader that decompresses compressed files.
+     */
+    static BufferedReaderFactory bufferedReaderFactory() {
+        return (resource, encoding) -> {
+            InputStream input = isCompressed(resource) ? open(resource.getFile().toPath()) : resource.getInputStream();
+            return new BufferedReader(new InputStreamReader(input, encoding));
+        };
+    }
+}
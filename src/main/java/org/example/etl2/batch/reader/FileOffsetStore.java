@@ -0,0 +1,185 @@
+package org.example.etl2.batch.reader;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.listener.StepExecutionListener;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Remembers in {@code input_file_offset} how far each input file has been imported, so
+ * files that are appended to are read from where the last import stopped.
+ * <p>
+ * A stored offset is only resumed from when the file is still the same file: same file
+ * key (the inode on Unix), at least as large as the offset, and the same hash of its
+ * first bytes. A replaced or truncated file is read from the start.
+ * <p>
+ * Readers report the offset they reached at the end of a file; the offsets are saved
+ * once the reading step completed, so every offset in the table is backed by committed
+ * rows. A step that fails keeps the offsets it reached in its execution context, and
+ * its restart, which resumes after the files it finished, saves them when it completes.
+ * If the application stops without that, the next import reads those lines again and
+ * the {@code INSERT IGNORE} writers drop them as duplicates.
+ */
+@Component
+public class FileOffsetStore implements StepExecutionListener {
+
+    private static final String SELECT_SQL = """
+            SELECT file_key, head_hash, byte_offset, line_count FROM input_file_offset WHERE file_name = ?
+            """;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO input_file_offset (file_name, file_key, head_hash, byte_offset, line_count, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?) AS new
+            ON DUPLICATE KEY UPDATE
+                file_key = new.file_key,
+                head_hash = new.head_hash,
+                byte_offset = new.byte_offset,
+                line_count = new.line_count,
+                updated_at = new.updated_at
+            """;
+
+    /** Prefix of the step execution context keys of offsets reached by a failed execution. */
+    static final String PENDING_KEY_PREFIX = "input.offset.";
+
+    /** Bytes at the start of a file that are hashed to recognise it. */
+    private static final int HEAD_SIZE = 4096;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Offsets reached by running steps, by step execution id and file name. */
+    private final Map<Long, Map<String, FileOffset>> pending = new ConcurrentHashMap<>();
+
+    public FileOffsetStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return the stored offset of the file if it is still the same file, otherwise the
+     *         start of the file
+     */
+    public FileOffset resume(Path file, FileChannel channel) throws IOException {
+        List<FileOffset> stored = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new FileOffset(
+                rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getInt(4)), name(file));
+        if (stored.isEmpty()) {
+            return FileOffset.START;
+        }
+        FileOffset offset = stored.getFirst();
+        if (!Objects.equals(offset.fileKey(), fileKey(file)) || channel.size() < offset.byteOffset()
+                || offset.headHash() != headHash(channel, offset.byteOffset())) {
+            return FileOffset.START;
+        }
+        return offset;
+    }
+
+    /**
+     * Records that the step read the file up to the offset, to be saved when the step
+     * completes.
+     */
+    public void reached(long stepExecutionId, Path file, FileChannel channel, long byteOffset, int lineCount)
+            throws IOException {
+        FileOffset offset = new FileOffset(fileKey(file), headHash(channel, byteOffset), byteOffset, lineCount);
+        pending.computeIfAbsent(stepExecutionId, id -> new ConcurrentHashMap<>()).put(name(file), offset);
+    }
+
+    /**
+     * Takes over the offsets a failed execution of the step reached.
+     */
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        ExecutionContext context = stepExecution.getExecutionContext();
+        Map<String, FileOffset> offsets = new ConcurrentHashMap<>();
+        for (Map.Entry<String, Object> entry : context.entrySet()) {
+            if (entry.getKey().startsWith(PENDING_KEY_PREFIX)) {
+                offsets.put(entry.getKey().substring(PENDING_KEY_PREFIX.length()),
+                        FileOffset.parse((String) entry.getValue()));
+            }
+        }
+        offsets.keySet().forEach(file -> context.remove(PENDING_KEY_PREFIX + file));
+        if (!offsets.isEmpty()) {
+            pending.put(stepExecution.getId(), offsets);
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        Map<String, FileOffset> offsets = pending.remove(stepExecution.getId());
+        if (offsets == null) {
+            return null;
+        }
+        if (stepExecution.getStatus() == BatchStatus.COMPLETED) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            offsets.forEach((file, offset) -> jdbcTemplate.update(UPSERT_SQL,
+                    file, offset.fileKey(), offset.headHash(), offset.byteOffset(), offset.lineCount(), now));
+        } else {
+            // Saved with the execution context after the listeners ran
+            offsets.forEach((file, offset) ->
+                    stepExecution.getExecutionContext().putString(PENDING_KEY_PREFIX + file, offset.format()));
+        }
+        return null;
+    }
+
+    private static String name(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+    private static String fileKey(Path file) throws IOException {
+        Object key = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+        return key != null ? key.toString() : null;
+    }
+
+    /**
+     * Hash of the first bytes of the file, up to {@link #HEAD_SIZE} but not beyond the
+     * offset, so a hash taken at one offset can be checked once the file has grown.
+     */
+    private static long headHash(FileChannel channel, long byteOffset) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(HEAD_SIZE, byteOffset));
+        while (head.hasRemaining() && channel.read(head, head.position()) > 0) {
+            // Positional reads do not move the channel
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(head.flip());
+        return crc.getValue();
+    }
+
+    /**
+     * @param fileKey    file system identity of the file, {@code null} where not supported
+     * @param headHash   hash of the first bytes of the file
+     * @param byteOffset start of the first line not imported yet
+     * @param lineCount  lines before that offset, header included
+     */
+    public record FileOffset(String fileKey, long headHash, long byteOffset, int lineCount) {
+
+        static final FileOffset START = new FileOffset(null, 0, 0, 0);
+
+        /**
+         * @return {@code byteOffset,lineCount,headHash,fileKey}, the file key last as it
+         *         may contain commas itself
+         */
+        String format() {
+            return byteOffset + "," + lineCount + "," + headHash + "," + (fileKey != null ? fileKey : "");
+        }
+
+        static FileOffset parse(String value) {
+            String[] fields = value.split(",", 4);
+            return new FileOffset(fields[3].isEmpty() ? null : fields[3], Long.parseLong(fields[2]),
+                    Long.parseLong(fields[0]), Integer.parseInt(fields[1]));
+        }
+    }
+}
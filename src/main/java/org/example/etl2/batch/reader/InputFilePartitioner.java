@@ -0,0 +1,151 @@
+package org.example.etl2.batch.reader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.Partitioner;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates one partition per input file. The partitioner is created with the files
+ * resolved when the manager step starts, so files dropped after startup are still
+ * picked up.
+ * <p>
+ * Files larger than the split size are further divided into byte ranges of roughly
+ * that size. Range boundaries are moved forward to the next line start, so every
+ * line belongs to exactly one range. The file is read once to find the boundaries and
+ * count the lines before each range, so a range's reader reports the line numbers of
+ * the file. Compressed files are never split, as they can only be read from the start.
+ */
+public class InputFilePartitioner implements Partitioner {
+
+    public static final String FILE_NAME_KEY = "fileName";
+    public static final String START_OFFSET_KEY = "startOffset";
+    public static final String END_OFFSET_KEY = "endOffset";
+    /** Number of lines before the start offset. */
+    public static final String START_LINE_KEY = "startLine";
+    private static final String PARTITION_PREFIX = "partition";
+    private static final int SCAN_BUFFER_SIZE = 1024 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(InputFilePartitioner.class);
+
+    private final Resource[] resources;
+    private final long splitSize;
+
+    /**
+     * @param splitSize files larger than this number of bytes are split into byte ranges;
+     *                  {@code 0} disables splitting
+     */
+    public InputFilePartitioner(Resource[] resources, long splitSize) {
+        this.resources = resources;
+        this.splitSize = splitSize;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+
+        for (Resource resource : resources) {
+            String fileName = toUrl(resource);
+            long size = contentLength(resource);
+
+            if (splitSize <= 0 || size <= splitSize || isCompressed(resource)) {
+                ExecutionContext context = new ExecutionContext();
+                context.putString(FILE_NAME_KEY, fileName);
+                partitions.put(PARTITION_PREFIX + partitions.size(), context);
+                continue;
+            }
+
+            for (ExecutionContext range : split(resource, size)) {
+                range.putString(FILE_NAME_KEY, fileName);
+                partitions.put(PARTITION_PREFIX + partitions.size(), range);
+            }
+            log.info("Split {} ({} bytes) into byte ranges of about {} bytes", resource.getFilename(), size, splitSize);
+        }
+
+        log.info("Created {} partitions for {} files", partitions.size(), resources.length);
+        return partitions;
+    }
+
+    /**
+     * Scans the file for the byte ranges: each range but the first starts at the first
+     * line start at least the split size after the start of the previous one.
+     */
+    private List<ExecutionContext> split(Resource resource, long size) {
+        List<ExecutionContext> ranges = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            long start = 0;
+            long startLine = 0;
+            long lines = 0;
+            long position = 0;
+            while (position < size) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                byte[] bytes = buffer.array();
+                for (int i = 0; i < read; i++) {
+                    if (bytes[i] != '\n') {
+                        continue;
+                    }
+                    lines++;
+                    long lineStart = position + i + 1;
+                    if (lineStart >= start + splitSize && lineStart < size) {
+                        ranges.add(range(start, lineStart, startLine));
+                        start = lineStart;
+                        startLine = lines;
+                    }
+                }
+                position += read;
+            }
+            ranges.add(range(start, size, startLine));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to split " + resource.getDescription(), e);
+        }
+        return ranges;
+    }
+
+    private static ExecutionContext range(long start, long end, long startLine) {
+        ExecutionContext context = new ExecutionContext();
+        context.putLong(START_OFFSET_KEY, start);
+        context.putLong(END_OFFSET_KEY, end);
+        context.putLong(START_LINE_KEY, startLine);
+        return context;
+    }
+
+    private static boolean isCompressed(Resource resource) {
+        try {
+            return CompressedInput.isCompressed(resource);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + resource.getDescription(), e);
+        }
+    }
+
+    private static long contentLength(Resource resource) {
+        try {
+            return resource.contentLength();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read size of " + resource.getDescription(), e);
+        }
+    }
+
+    private static String toUrl(Resource resource) {
+        try {
+            return resource.getURL().toExternalForm();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to resolve URL of " + resource.getDescription(), e);
+        }
+    }
+}
@@ -1,36 +1,86 @@
 package org.example.etl2.batch.reader;
 
 import org.example.etl2.model.TemperatureReading;
-import org.springframework.batch.infrastructure.item.file.FlatFileItemReader;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.infrastructure.item.file.MultiResourceItemReader;
+import org.springframework.batch.infrastructure.item.file.ResourceAwareItemReaderItemStream;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.unit.DataSize;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
 public class MultiFileReaderConfig {
 
+    /**
+     * Job parameter with the comma separated names of the files in the input directory to
+     * import. Without it a job imports every CSV file of the directory, plain or gzip
+     * compressed.
+     */
+    public static final String INPUT_FILES_PARAMETER = "input.files";
+
+    private static final List<String> INPUT_PATTERNS = List.of("*.csv", "*.csv.gz");
+
     @Value("${batch.input.directory}")
     private String inputDirectory;
 
-    private final FlatFileItemReader<TemperatureReading> temperatureItemReader;
+    @Value("${batch.partition.split-size:256MB}")
+    private DataSize splitSize;
+
+    @Value("${batch.reader.tail.enabled:false}")
+    private boolean tail;
 
-    public MultiFileReaderConfig(FlatFileItemReader<TemperatureReading> temperatureItemReader) {
+    private final ResourceAwareItemReaderItemStream<TemperatureReading> temperatureItemReader;
+
+    public MultiFileReaderConfig(ResourceAwareItemReaderItemStream<TemperatureReading> temperatureItemReader) {
         this.temperatureItemReader = temperatureItemReader;
     }
 
+    /**
+     * Reader of the serial import. Step scoped, so the input files are resolved when the
+     * step starts rather than when the application context is created.
+     */
     @Bean
-    public MultiResourceItemReader<TemperatureReading> multiResourceItemReader() throws IOException {
-        ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
-        Resource[] resources = resolver.getResources("file:" + inputDirectory + "/*.csv");
-
+    @StepScope
+    public MultiResourceItemReader<TemperatureReading> multiResourceItemReader(
+            @Value("#{jobParameters['" + INPUT_FILES_PARAMETER + "']}") String inputFiles) throws IOException {
         var reader = new MultiResourceItemReader<>(temperatureItemReader);
-        reader.setResources(resources);
+        reader.setResources(inputResources(inputFiles));
         return reader;
     }
+
+    /**
+     * Partitioner of the partitioned import. Tailed files are not split, their reader
+     * starts at the stored offset instead.
+     */
+    @Bean
+    @StepScope
+    public InputFilePartitioner inputFilePartitioner(
+            @Value("#{jobParameters['" + INPUT_FILES_PARAMETER + "']}") String inputFiles) throws IOException {
+        return new InputFilePartitioner(inputResources(inputFiles), tail ? 0 : splitSize.toBytes());
+    }
+
+    private Resource[] inputResources(String inputFiles) throws IOException {
+        ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        if (inputFiles == null) {
+            List<Resource> resources = new ArrayList<>();
+            for (String pattern : INPUT_PATTERNS) {
+                resources.addAll(List.of(resolver.getResources("file:" + inputDirectory + "/" + pattern)));
+            }
+            return resources.toArray(Resource[]::new);
+        }
+        String[] names = inputFiles.split(",");
+        Resource[] resources = new Resource[names.length];
+        for (int i = 0; i < names.length; i++) {
+            resources[i] = resolver.getResource("file:" + inputDirectory + "/" + names[i]);
+        }
+        return resources;
+    }
 }
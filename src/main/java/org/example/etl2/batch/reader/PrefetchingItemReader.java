@@ -0,0 +1,221 @@
+package org.example.etl2.batch.reader;
+
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.batch.infrastructure.item.ItemStreamException;
+import org.springframework.batch.infrastructure.item.ItemStreamReader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Reads ahead of the step on a background thread, so that parsing the next chunk
+ * overlaps with writing and committing the current one. Items are handed over in
+ * batches through a bounded queue; when the queue is full the background thread waits
+ * for the step to catch up.
+ * <p>
+ * Exceptions thrown by the delegate are handed over in place of the item and rethrown
+ * by {@link #read()}, so the step's skip handling sees them as before. What the step
+ * needs to know about the delegate at the time it failed, such as the file it was
+ * reading, can be captured with a failure context.
+ * <p>
+ * Before every batch the delegate's state is captured. {@link #update(ExecutionContext)}
+ * saves the state at the start of the batch the step is reading, together with the
+ * number of reads the step has taken from it. A restarted reader opens the delegate with
+ * that state and discards as many reads before it reads ahead, so it resumes right after
+ * the last item the step committed.
+ * <p>
+ * The delegate is only used by the background thread between {@link #open} and
+ * {@link #close}. The background thread joins the step execution that opened the
+ * reader, so a step scoped delegate resolves to the bean of that step. Not thread-safe;
+ * use one per step.
+ */
+public class PrefetchingItemReader<T> implements ItemStreamReader<T> {
+
+    static final String READ_COUNT_KEY = "prefetch.read.count";
+
+    private final ItemStreamReader<T> delegate;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final Supplier<?> failureContext;
+
+    private BlockingQueue<Batch> queue;
+    private Thread readAheadThread;
+    private volatile boolean running;
+    private StepExecution stepExecution;
+
+    private Batch current;
+    private int position;
+    private int consumedReads;
+    private int restoredReads;
+    private Object lastFailureContext;
+
+    public PrefetchingItemReader(ItemStreamReader<T> delegate, int batchSize, int queueCapacity) {
+        this(delegate, batchSize, queueCapacity, () -> null);
+    }
+
+    /**
+     * @param failureContext called on the background thread when the delegate fails; its
+     *                       result is returned by {@link #getFailureContext()} once
+     *                       {@link #read()} rethrows the failure
+     */
+    public PrefetchingItemReader(ItemStreamReader<T> delegate, int batchSize, int queueCapacity,
+                                 Supplier<?> failureContext) {
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.failureContext = failureContext;
+    }
+
+    /**
+     * @return the failure context of the last failure {@link #read()} rethrew
+     */
+    public Object getFailureContext() {
+        return lastFailureContext;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.open(executionContext);
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        current = null;
+        position = 0;
+        consumedReads = 0;
+        restoredReads = executionContext.getInt(READ_COUNT_KEY, 0);
+        running = true;
+        StepContext stepContext = StepSynchronizationManager.getContext();
+        stepExecution = stepContext != null ? stepContext.getStepExecution() : null;
+        readAheadThread = Thread.ofPlatform()
+                .name("read-ahead-" + Thread.currentThread().getName())
+                .daemon()
+                .start(this::readAhead);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T read() throws Exception {
+        while (true) {
+            if (current != null && position < current.items.size()) {
+                Object next = current.items.get(position++);
+                if (next instanceof Failure failure) {
+                    if (failure.read) {
+                        consumedReads++;
+                    }
+                    lastFailureContext = failure.context;
+                    if (failure.cause instanceof Exception exception) {
+                        throw exception;
+                    }
+                    throw (Error) failure.cause;
+                }
+                consumedReads++;
+                return (T) next;
+            }
+            if (current != null && current.last) {
+                return null;
+            }
+            current = queue.take();
+            position = 0;
+            consumedReads = current.skippedReads;
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        // Until the step takes the first batch, the state it was opened with still holds
+        if (current != null) {
+            for (Map.Entry<String, Object> entry : current.startState.entrySet()) {
+                executionContext.put(entry.getKey(), entry.getValue());
+            }
+            executionContext.putInt(READ_COUNT_KEY, consumedReads);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        running = false;
+        if (readAheadThread != null) {
+            readAheadThread.interrupt();
+            try {
+                readAheadThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            readAheadThread = null;
+        }
+        queue = null;
+        delegate.close();
+    }
+
+    private void readAhead() {
+        if (stepExecution != null) {
+            StepSynchronizationManager.register(stepExecution);
+        }
+        try {
+            boolean last = false;
+            int skippedReads = restoredReads;
+            while (running && !last) {
+                List<Object> items = new ArrayList<>(batchSize);
+                ExecutionContext startState = new ExecutionContext();
+                try {
+                    delegate.update(startState);
+                    // Reads the step committed before the restart; failures among them were skipped then
+                    for (int i = 0; i < skippedReads && !last; i++) {
+                        try {
+                            last = delegate.read() == null;
+                        } catch (Exception e) {
+                            // Skipped before the restart
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    items.add(new Failure(e, failureContext.get(), false));
+                }
+                while (items.size() < batchSize && !last) {
+                    Object item;
+                    try {
+                        item = delegate.read();
+                    } catch (Exception e) {
+                        item = new Failure(e, failureContext.get(), true);
+                    } catch (Error e) {
+                        // Fail the step instead of leaving it waiting for the next batch
+                        items.add(new Failure(e, null, true));
+                        last = true;
+                        break;
+                    }
+                    if (item == null) {
+                        last = true;
+                        break;
+                    }
+                    items.add(item);
+                }
+                queue.put(new Batch(items, startState, skippedReads, last));
+                skippedReads = 0;
+            }
+        } catch (InterruptedException e) {
+            // Closed by the step
+        } finally {
+            if (stepExecution != null) {
+                // The step still holds the context, so this does not destroy its step scoped beans
+                StepSynchronizationManager.close();
+            }
+        }
+    }
+
+    /**
+     * @param startState   the delegate's state before the batch
+     * @param skippedReads the reads discarded between that state and the first item
+     */
+    private record Batch(List<Object> items, ExecutionContext startState, int skippedReads, boolean last) {
+    }
+
+    /**
+     * @param read whether the failure took a read of the delegate
+     */
+    private record Failure(Throwable cause, Object context, boolean read) {
+    }
+}
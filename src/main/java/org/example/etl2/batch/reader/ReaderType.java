@@ -0,0 +1,13 @@
+package org.example.etl2.batch.reader;
+
+/**
+ * Selects how input lines are parsed, set with {@code batch.reader.type}.
+ */
+public enum ReaderType {
+
+    /** {@link org.springframework.batch.infrastructure.item.file.FlatFileItemReader} with a tokenizer and field set mapper. */
+    FLAT_FILE,
+
+    /** {@link ByteRangeItemReader} parsing lines directly from bytes with {@link TemperatureByteLineMapper}. */
+    BYTE_BUFFER
+}
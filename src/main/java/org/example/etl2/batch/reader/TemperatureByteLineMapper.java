@@ -0,0 +1,177 @@
+package org.example.etl2.batch.reader;
+
+import org.example.etl2.model.TemperatureReading;
+import org.springframework.batch.infrastructure.item.file.LineMapper;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Parses {@code name,datetime,temp} lines directly from bytes, without building the
+ * line, token and field set strings of the {@link LineMapper} path. Station names are
+ * cached, so a name is only decoded the first time it is seen.
+ * <p>
+ * Only the common layout is handled here: an unquoted, untrimmed name, a
+ * {@code yyyy-MM-ddTHH:mm:ss} datetime and a plain decimal temperature. Any other line
+ * is handed to the fallback {@link LineMapper}, so results and errors are the same as
+ * with the {@link org.springframework.batch.infrastructure.item.file.FlatFileItemReader}.
+ * <p>
+ * Instances are not thread-safe; every reader needs its own.
+ */
+public class TemperatureByteLineMapper implements ByteLineMapper<TemperatureReading> {
+
+    private static final int DATETIME_LENGTH = 19;
+    private static final int MAX_DECIMAL_DIGITS = 18;
+    private static final int NAME_CACHE_SIZE = 1024;
+
+    private final LineMapper<TemperatureReading> fallback;
+    private final byte[][] cachedNameBytes = new byte[NAME_CACHE_SIZE][];
+    private final String[] cachedNames = new String[NAME_CACHE_SIZE];
+
+    public TemperatureByteLineMapper(LineMapper<TemperatureReading> fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public TemperatureReading mapLine(byte[] line, int length, int lineNumber) throws Exception {
+        TemperatureReading reading = parse(line, length);
+        if (reading != null) {
+            return reading;
+        }
+        return fallback.mapLine(new String(line, 0, length, StandardCharsets.UTF_8), lineNumber);
+    }
+
+    /**
+     * @return the parsed reading, or {@code null} if the line does not have the common layout
+     */
+    private TemperatureReading parse(byte[] line, int length) {
+        int firstComma = indexOf(line, 0, length);
+        if (firstComma <= 0 || firstComma + 1 + DATETIME_LENGTH >= length
+                || line[firstComma + 1 + DATETIME_LENGTH] != ',') {
+            return null;
+        }
+        int secondComma = firstComma + 1 + DATETIME_LENGTH;
+        if (indexOf(line, secondComma + 1, length) >= 0) {
+            return null;
+        }
+        if (isQuotedOrPadded(line, 0, firstComma)) {
+            return null;
+        }
+
+        LocalDateTime datetime = parseDateTime(line, firstComma + 1);
+        if (datetime == null) {
+            return null;
+        }
+        BigDecimal temp = parseDecimal(line, secondComma + 1, length);
+        if (temp == null) {
+            return null;
+        }
+        return new TemperatureReading(name(line, firstComma), datetime, temp);
+    }
+
+    private static LocalDateTime parseDateTime(byte[] b, int off) {
+        if (b[off + 4] != '-' || b[off + 7] != '-' || b[off + 10] != 'T'
+                || b[off + 13] != ':' || b[off + 16] != ':') {
+            return null;
+        }
+        int year = digits(b, off, 4);
+        int month = digits(b, off + 5, 2);
+        int day = digits(b, off + 8, 2);
+        int hour = digits(b, off + 11, 2);
+        int minute = digits(b, off + 14, 2);
+        int second = digits(b, off + 17, 2);
+        if ((year | month | day | hour | minute | second) < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static BigDecimal parseDecimal(byte[] b, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (b[i] == '-' || b[i] == '+')) {
+            negative = b[i] == '-';
+            i++;
+        }
+
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < to; i++) {
+            byte c = b[i];
+            if (c == '.' && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            if (c < '0' || c > '9' || ++digits > MAX_DECIMAL_DIGITS) {
+                return null;
+            }
+            unscaled = unscaled * 10 + (c - '0');
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+        if (digits == 0 || scale == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    private String name(byte[] line, int length) {
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + line[i];
+        }
+        int slot = hash & (NAME_CACHE_SIZE - 1);
+
+        byte[] cached = cachedNameBytes[slot];
+        if (cached != null && Arrays.equals(cached, 0, cached.length, line, 0, length)) {
+            return cachedNames[slot];
+        }
+        String name = new String(line, 0, length, StandardCharsets.UTF_8);
+        cachedNameBytes[slot] = Arrays.copyOf(line, length);
+        cachedNames[slot] = name;
+        return name;
+    }
+
+    /**
+     * @return the value of {@code count} ASCII digits, or a negative number if any byte is not a digit
+     */
+    private static int digits(byte[] b, int off, int count) {
+        int value = 0;
+        for (int i = off; i < off + count; i++) {
+            int digit = b[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int indexOf(byte[] b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (b[i] == ',') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Quoted or whitespace-padded names are left to the tokenizer. */
+    private static boolean isQuotedOrPadded(byte[] b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (b[i] == '"') {
+                return true;
+            }
+        }
+        return (b[from] & 0xff) <= ' ' || (b[to - 1] & 0xff) <= ' ';
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.etl2.batch.reader;
+
+import org.example.etl2.batch.processor.InvalidDateTimeException;
+import org.example.etl2.batch.processor.InvalidTemperatureException;
+import org.springframework.batch.infrastructure.item.file.transform.DefaultFieldSet;
+import org.springframework.batch.infrastructure.item.file.transform.FieldSet;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Decodes the datetime and temperature columns. Values are trimmed as
+ * {@link FieldSet#readString(String)} does. The layouts used by the sensor feeds,
+ * {@code yyyy-MM-ddTHH:mm:ss} and a decimal with a few fraction digits, are decoded
+ * directly from the characters. Anything else goes through
+ * {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME} and {@link FieldSet#readBigDecimal(int)},
+ * so the accepted input is the same as before.
+ */
+final class TemperatureFieldDecoder {
+
+    private static final int DATETIME_LENGTH = 19;
+    private static final int MAX_FAST_DIGITS = 18;
+
+    private TemperatureFieldDecoder() {
+    }
+
+    static LocalDateTime decodeDateTime(String value) {
+        if (value != null) {
+            value = value.trim();
+        }
+        if (value == null || value.isEmpty()) {
+            throw new InvalidDateTimeException(value, "datetime is missing");
+        }
+        if (value.length() == DATETIME_LENGTH
+                && value.charAt(4) == '-' && value.charAt(7) == '-' && value.charAt(10) == 'T'
+                && value.charAt(13) == ':' && value.charAt(16) == ':') {
+            int year = digits(value, 0, 4);
+            int month = digits(value, 5, 7);
+            int day = digits(value, 8, 10);
+            int hour = digits(value, 11, 13);
+            int minute = digits(value, 14, 16);
+            int second = digits(value, 17, 19);
+            if ((year | month | day | hour | minute | second) >= 0) {
+                try {
+                    return LocalDateTime.of(year, month, day, hour, minute, second);
+                } catch (DateTimeException e) {
+                    throw new InvalidDateTimeException(value, e.getMessage());
+                }
+            }
+        }
+
+        try {
+            return LocalDateTime.parse(value, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        } catch (DateTimeParseException e) {
+            throw new InvalidDateTimeException(value, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the temperature, or {@code null} if the value is blank
+     */
+    static BigDecimal decodeTemperature(String value) {
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        if (value.isEmpty()) {
+            return null;
+        }
+
+        int length = value.length();
+        int i = 0;
+        boolean negative = false;
+        char first = value.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '.' && scale < 0) {
+                scale = 0;
+            } else if (c >= '0' && c <= '9' && digits < MAX_FAST_DIGITS) {
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else {
+                return parseDecimal(value);
+            }
+        }
+        if (digits == 0) {
+            return parseDecimal(value);
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    /**
+     * Parses the value as the field set did before, which also removes grouping
+     * separators and treats values of Unicode whitespace as blank.
+     */
+    private static BigDecimal parseDecimal(String value) {
+        try {
+            return new DefaultFieldSet(new String[] {value}).readBigDecimal(0);
+        } catch (NumberFormatException e) {
+            throw new InvalidTemperatureException(value, "not a decimal number");
+        }
+    }
+
+    /**
+     * @return the value of the ASCII digits in {@code [from, to)}, or -1 if any character is not a digit
+     */
+    private static int digits(String value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+}
@@ -1,26 +1,124 @@
 package org.example.etl2.batch.reader;
 
+import org.example.etl2.batch.deadletter.DeadLetterItemReader;
+import org.example.etl2.batch.deadletter.DeadLetterStore;
 import org.example.etl2.model.TemperatureReading;
 import org.springframework.batch.core.configuration.annotation.StepScope;
-import org.springframework.batch.infrastructure.item.file.FlatFileItemReader;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.file.LineMapper;
+import org.springframework.batch.infrastructure.item.file.ResourceAwareItemReaderItemStream;
 import org.springframework.batch.infrastructure.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.batch.infrastructure.item.file.mapping.DefaultLineMapper;
+import org.springframework.batch.infrastructure.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
 
 @Configuration
 public class TemperatureItemReaderConfig {
 
+    private static final String READER_NAME = "temperatureItemReader";
+
+    @Value("${batch.reader.type:flat-file}")
+    private ReaderType readerType;
+
+    @Value("${batch.reader.tail.enabled:false}")
+    private boolean tail;
+
+    private final FileOffsetStore fileOffsetStore;
+    private final DeadLetterStore deadLetterStore;
+
+    public TemperatureItemReaderConfig(FileOffsetStore fileOffsetStore, DeadLetterStore deadLetterStore) {
+        this.fileOffsetStore = fileOffsetStore;
+        this.deadLetterStore = deadLetterStore;
+    }
+
+    /**
+     * Reader of each file of the serial import. With {@code batch.reader.tail.enabled}
+     * files are read from where their last import stopped, always by a
+     * {@link ByteRangeItemReader}, as only it can start at a byte offset;
+     * {@code batch.reader.type} then only selects how its lines are parsed.
+     */
+    @Bean
+    @StepScope
+    public ResourceAwareItemReaderItemStream<TemperatureReading> temperatureItemReader(
+            @Value("#{stepExecution}") StepExecution stepExecution) {
+        return newReader(stepExecution);
+    }
+
+    /**
+     * Reader for a single partition of the partitioned import step. Being step scoped,
+     * every worker step gets its own instance bound to the file, or the byte range of a
+     * file, of its partition.
+     */
+    @Bean
+    @StepScope
+    public ResourceAwareItemReaderItemStream<TemperatureReading> partitionItemReader(
+            @Value("#{stepExecutionContext['" + InputFilePartitioner.FILE_NAME_KEY + "']}") Resource resource,
+            @Value("#{stepExecutionContext['" + InputFilePartitioner.START_OFFSET_KEY + "']}") Long startOffset,
+            @Value("#{stepExecutionContext['" + InputFilePartitioner.END_OFFSET_KEY + "']}") Long endOffset,
+            @Value("#{stepExecutionContext['" + InputFilePartitioner.START_LINE_KEY + "']}") Long startLine,
+            @Value("#{stepExecution}") StepExecution stepExecution) {
+        if (startOffset == null) {
+            var reader = newReader(stepExecution);
+            reader.setResource(resource);
+            return reader;
+        }
+
+        var reader = byteRangeReader();
+        reader.setResource(resource);
+        reader.setStartOffset(startOffset);
+        reader.setEndOffset(endOffset);
+        if (startLine != null) {
+            reader.setStartLine(startLine);
+        }
+        return reader;
+    }
+
+    /**
+     * Reader of the dead letter replay, parsing the stored rows like the import does.
+     */
     @Bean
     @StepScope
-    public FlatFileItemReader<TemperatureReading> temperatureItemReader() {
-        return new FlatFileItemReaderBuilder<TemperatureReading>()
-                .name("temperatureItemReader")
-                .linesToSkip(1)
-                .encoding("UTF-8")
-                .delimited()
-                .delimiter(",")
-                .names("name", "datetime", "temp")
-                .fieldSetMapper(new TemperatureReadingFieldSetMapper())
-                .build();
+    public DeadLetterItemReader<TemperatureReading> deadLetterItemReader() {
+        return new DeadLetterItemReader<>(deadLetterStore, lineMapper());
+    }
+
+    private ResourceAwareItemReaderItemStream<TemperatureReading> newReader(StepExecution stepExecution) {
+        if (tail) {
+            var reader = byteRangeReader();
+            reader.setOffsetStore(fileOffsetStore, stepExecution.getId());
+            return reader;
+        }
+        return switch (readerType) {
+            case FLAT_FILE -> new FlatFileItemReaderBuilder<TemperatureReading>()
+                    .name(READER_NAME)
+                    .linesToSkip(1)
+                    .encoding("UTF-8")
+                    .bufferedReaderFactory(CompressedInput.bufferedReaderFactory())
+                    .lineMapper(lineMapper())
+                    .build();
+            case BYTE_BUFFER -> byteRangeReader();
+        };
+    }
+
+    private ByteRangeItemReader<TemperatureReading> byteRangeReader() {
+        var reader = readerType == ReaderType.BYTE_BUFFER
+                ? new ByteRangeItemReader<>(new TemperatureByteLineMapper(lineMapper()))
+                : new ByteRangeItemReader<>(lineMapper());
+        reader.setName(READER_NAME);
+        reader.setLinesToSkip(1);
+        return reader;
+    }
+
+    private static LineMapper<TemperatureReading> lineMapper() {
+        var tokenizer = new DelimitedLineTokenizer(",");
+        tokenizer.setNames("name", "datetime", "temp");
+
+        var lineMapper = new DefaultLineMapper<TemperatureReading>();
+        lineMapper.setLineTokenizer(tokenizer);
+        lineMapper.setFieldSetMapper(new TemperatureReadingFieldSetMapper());
+        return lineMapper;
     }
 }
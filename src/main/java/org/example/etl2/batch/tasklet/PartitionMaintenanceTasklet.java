@@ -0,0 +1,185 @@
+package org.example.etl2.batch.tasklet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.StepContribution;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.infrastructure.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Keeps the monthly partitions of {@code temperature_data} in line with the calendar and
+ * the data. The table is range partitioned on {@code TO_DAYS(datetime)} into
+ * {@code p_past}, holding the rows older than the monthly partitions, one partition
+ * {@code pYYYYMM} per month and a catch-all {@code p_future}.
+ * <p>
+ * Partitions up to a configured number of months ahead are split off {@code p_future},
+ * so imports of current data insert into monthly partitions and {@code p_future} stays
+ * empty. On the first run the monthly partitions start at the current month and the
+ * rows imported before the table was partitioned move to {@code p_past}. Rows in
+ * {@code p_past}, such as those of a backfill, are split off into monthly partitions
+ * from the month of the oldest one, so history does not pile up in one partition.
+ * With a retention period, monthly partitions that ended before it are dropped; dropping
+ * a partition is a metadata operation instead of a {@code DELETE} of its rows. The
+ * rollup tables are not affected.
+ * <p>
+ * Every run works out what is missing from the partitions in the database, so the step
+ * can run before and after each import. The DDL commits implicitly, so the step runs
+ * without a transaction.
+ */
+@Component
+public class PartitionMaintenanceTasklet implements Tasklet {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintenanceTasklet.class);
+
+    static final String PAST_PARTITION = "p_past";
+    static final String FUTURE_PARTITION = "p_future";
+
+    private static final String PARTITIONS_SQL = """
+            SELECT PARTITION_NAME FROM information_schema.PARTITIONS
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'temperature_data' AND PARTITION_NAME IS NOT NULL
+            ORDER BY PARTITION_ORDINAL_POSITION
+            """;
+
+    private static final String OLDEST_PAST_ROW_SQL = "SELECT MIN(datetime) FROM temperature_data PARTITION (p_past)";
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final Clock clock;
+
+    @Autowired
+    public PartitionMaintenanceTasklet(
+            JdbcTemplate jdbcTemplate,
+            @Value("${batch.table-partitions.months-ahead:3}") int monthsAhead,
+            @Value("${batch.table-partitions.retention-months:0}") int retentionMonths) {
+        this(jdbcTemplate, monthsAhead, retentionMonths, Clock.systemUTC());
+    }
+
+    PartitionMaintenanceTasklet(JdbcTemplate jdbcTemplate, int monthsAhead, int retentionMonths, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.clock = clock;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        List<String> partitions = jdbcTemplate.queryForList(PARTITIONS_SQL, String.class);
+        if (!partitions.contains(PAST_PARTITION) || !partitions.contains(FUTURE_PARTITION)) {
+            log.warn("temperature_data has no {} and {} partitions, skipping partition maintenance",
+                    PAST_PARTITION, FUTURE_PARTITION);
+            return RepeatStatus.FINISHED;
+        }
+
+        List<YearMonth> months = new ArrayList<>();
+        for (String partition : partitions) {
+            if (partition.matches("p\\d{6}")) {
+                months.add(YearMonth.parse(partition, PARTITION_NAME));
+            }
+        }
+
+        YearMonth current = YearMonth.now(clock);
+        if (months.isEmpty()) {
+            createFirstPartitions(current, current.plusMonths(monthsAhead), months);
+        } else {
+            createPartitions(months.getLast().plusMonths(1), current.plusMonths(monthsAhead), months);
+        }
+        splitPast(months);
+        if (retentionMonths > 0) {
+            dropPartitions(months, current.minusMonths(retentionMonths));
+        }
+        return RepeatStatus.FINISHED;
+    }
+
+    /**
+     * Splits the monthly partitions off {@code p_past} and {@code p_future} of a table that
+     * has none yet, moving the rows before the first month to {@code p_past}.
+     */
+    private void createFirstPartitions(YearMonth first, YearMonth last, List<YearMonth> months) {
+        StringJoiner definitions = new StringJoiner(", ", "ALTER TABLE temperature_data REORGANIZE PARTITION "
+                + PAST_PARTITION + ", " + FUTURE_PARTITION + " INTO (", ")");
+        definitions.add(lessThan(PAST_PARTITION, first));
+        addMonths(definitions, first, last, months);
+        definitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE");
+        jdbcTemplate.execute(definitions.toString());
+        log.info("Created temperature_data partitions for {} to {}", first, last);
+    }
+
+    private void createPartitions(YearMonth first, YearMonth last, List<YearMonth> months) {
+        if (first.isAfter(last)) {
+            return;
+        }
+        StringJoiner definitions = new StringJoiner(", ",
+                "ALTER TABLE temperature_data REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO (", ")");
+        addMonths(definitions, first, last, months);
+        definitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE");
+        jdbcTemplate.execute(definitions.toString());
+        log.info("Created temperature_data partitions for {} to {}", first, last);
+    }
+
+    /**
+     * Splits monthly partitions for the rows in {@code p_past} off it, from the month of
+     * the oldest one up to the first monthly partition. {@code p_past} is empty unless
+     * rows older than the monthly partitions were imported, so it is cheap to look at.
+     */
+    private void splitPast(List<YearMonth> months) {
+        LocalDateTime oldest = jdbcTemplate.queryForObject(OLDEST_PAST_ROW_SQL, LocalDateTime.class);
+        if (oldest == null) {
+            return;
+        }
+        YearMonth first = YearMonth.from(oldest);
+        YearMonth last = months.getFirst().minusMonths(1);
+        StringJoiner definitions = new StringJoiner(", ",
+                "ALTER TABLE temperature_data REORGANIZE PARTITION " + PAST_PARTITION + " INTO (", ")");
+        definitions.add(lessThan(PAST_PARTITION, first));
+        List<YearMonth> split = new ArrayList<>();
+        addMonths(definitions, first, last, split);
+        jdbcTemplate.execute(definitions.toString());
+        months.addAll(0, split);
+        log.info("Split temperature_data partitions for {} to {} off {}", first, last, PAST_PARTITION);
+    }
+
+    private static void addMonths(StringJoiner definitions, YearMonth first, YearMonth last, List<YearMonth> months) {
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            definitions.add(lessThan(PARTITION_NAME.format(month), month.plusMonths(1)));
+            months.add(month);
+        }
+    }
+
+    /**
+     * @return the definition of a partition of the rows before the month
+     */
+    private static String lessThan(String partition, YearMonth month) {
+        return "PARTITION " + partition + " VALUES LESS THAN (TO_DAYS('" + month.atDay(1) + "'))";
+    }
+
+    private void dropPartitions(List<YearMonth> months, YearMonth oldestKept) {
+        StringJoiner names = new StringJoiner(", ", "ALTER TABLE temperature_data DROP PARTITION ", "");
+        int dropped = 0;
+        for (YearMonth month : months) {
+            if (month.isBefore(oldestKept)) {
+                names.add(PARTITION_NAME.format(month));
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            jdbcTemplate.execute(names.toString());
+            log.info("Dropped {} temperature_data partitions before {}", dropped, oldestKept);
+        }
+    }
+}
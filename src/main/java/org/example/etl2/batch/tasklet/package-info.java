@@ -0,0 +1,4 @@
+/**
+ * Tasklets for the housekeeping steps of the temperature data import batch job.
+ */
+package org.example.etl2.batch.tasklet;
@@ -0,0 +1,313 @@
+package org.example.etl2.batch.watch;
+
+import org.example.etl2.batch.listener.ProcessedFileRenamer;
+import org.example.etl2.batch.reader.MultiFileReaderConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.job.Job;
+import org.springframework.batch.core.job.JobExecution;
+import org.springframework.batch.core.job.parameters.JobParameters;
+import org.springframework.batch.core.job.parameters.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobOperator;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Keeps importing files dropped into the input directory while the application runs,
+ * so new files do not wait for the next start of the JVM and application context.
+ * <p>
+ * The directory is polled for {@code *.csv} and {@code *.csv.gz} files. A file counts as completely written
+ * once its size and modification time did not change between two polls and it was last
+ * modified at least the quiet period ago. Ready files are imported oldest first by a job
+ * instance with their names in the {@value MultiFileReaderConfig#INPUT_FILES_PARAMETER}
+ * parameter, and renamed to {@code .processed} when the job completes. A backlog is
+ * worked off in jobs of a limited number of files, one job at a time; within a job the
+ * files run in parallel as configured for the partitioned import.
+ * <p>
+ * Files of a failed job are left in place and not launched again until they change,
+ * which makes them a new job instance. Unchanged files whose job instance failed or
+ * stopped, as found again after a restart of the application, restart that instance
+ * where it stopped; those whose instance already completed are only renamed.
+ * <p>
+ * When files are tailed ({@code batch.reader.tail.enabled}) they are not renamed and
+ * do not need to be quiet: a file is imported again whenever it changed since its last
+ * import, and the reader only takes the complete lines appended since then. Every
+ * launch is then a new job instance.
+ * <p>
+ * File names containing a comma, or too long for the parameter on their own, cannot be
+ * passed in the parameter; they are logged and ignored until they change.
+ */
+@Component
+public class InputDirectoryWatcher implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(InputDirectoryWatcher.class);
+
+    /** Keeps the parameter within the {@code VARCHAR(2500)} of the job repository. */
+    static final int MAX_PARAMETER_LENGTH = 2000;
+    private static final String LAUNCH_TIME_PARAMETER = "input.launch-time";
+    static final String FINGERPRINT_PARAMETER = "input.fingerprint";
+
+    private final JobOperator jobOperator;
+    private final JobRepository jobRepository;
+    private final Job temperatureImportJob;
+    private final ProcessedFileRenamer processedFileRenamer;
+    private final boolean enabled;
+    private final Path inputDirectory;
+    private final Duration pollInterval;
+    private final Duration quietPeriod;
+    private final int maxFilesPerJob;
+    private final boolean tail;
+    private final Clock clock;
+
+    private final Object monitor = new Object();
+    private Map<Path, FileState> seen = new HashMap<>();
+    /** Files not to launch again until they change. */
+    private final Map<Path, FileState> launched = new HashMap<>();
+    private volatile boolean running;
+    private Thread thread;
+
+    @Autowired
+    public InputDirectoryWatcher(JobOperator jobOperator, JobRepository jobRepository, Job temperatureImportJob,
+                                 ProcessedFileRenamer processedFileRenamer,
+                                 @Value("${batch.watch.enabled:false}") boolean enabled,
+                                 @Value("${batch.input.directory}") Path inputDirectory,
+                                 @Value("${batch.watch.poll-interval:5s}") Duration pollInterval,
+                                 @Value("${batch.watch.quiet-period:10s}") Duration quietPeriod,
+                                 @Value("${batch.watch.max-files-per-job:20}") int maxFilesPerJob,
+                                 @Value("${batch.reader.tail.enabled:false}") boolean tail) {
+        this(jobOperator, jobRepository, temperatureImportJob, processedFileRenamer, enabled, inputDirectory,
+                pollInterval, quietPeriod, maxFilesPerJob, tail, Clock.systemUTC());
+    }
+
+    InputDirectoryWatcher(JobOperator jobOperator, JobRepository jobRepository, Job temperatureImportJob,
+                          ProcessedFileRenamer processedFileRenamer, boolean enabled, Path inputDirectory,
+                          Duration pollInterval, Duration quietPeriod, int maxFilesPerJob, boolean tail,
+                          Clock clock) {
+        this.jobOperator = jobOperator;
+        this.jobRepository = jobRepository;
+        this.temperatureImportJob = temperatureImportJob;
+        this.processedFileRenamer = processedFileRenamer;
+        this.enabled = enabled;
+        this.inputDirectory = inputDirectory;
+        this.pollInterval = pollInterval;
+        this.quietPeriod = quietPeriod;
+        this.maxFilesPerJob = maxFilesPerJob;
+        this.tail = tail;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return enabled;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = Thread.ofPlatform().name("input-watcher").start(this::run);
+        log.info("Watching {} for new files every {}", inputDirectory.toAbsolutePath(), pollInterval);
+    }
+
+    /**
+     * Stops polling, waiting for a running job to finish.
+     */
+    @Override
+    public void stop() {
+        synchronized (monitor) {
+            running = false;
+            monitor.notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running) {
+            boolean launched = false;
+            try {
+                launched = poll();
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to poll {}", inputDirectory, e);
+            }
+            if (!launched) {
+                // Poll again right away while there is a backlog
+                awaitNextPoll();
+            }
+        }
+    }
+
+    private void awaitNextPoll() {
+        synchronized (monitor) {
+            if (!running) {
+                return;
+            }
+            try {
+                monitor.wait(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+
+    /**
+     * @return whether a job was launched
+     */
+    boolean poll() throws IOException {
+        List<Path> ready = readyFiles();
+        if (ready.isEmpty()) {
+            return false;
+        }
+
+        List<Path> files = new ArrayList<>();
+        StringJoiner names = new StringJoiner(",");
+        for (Path file : ready) {
+            String name = file.getFileName().toString();
+            if (files.size() == maxFilesPerJob || names.length() + name.length() + 1 > MAX_PARAMETER_LENGTH) {
+                break;
+            }
+            files.add(file);
+            names.add(name);
+        }
+        launch(files, names.toString());
+        return true;
+    }
+
+    /**
+     * Files that stopped changing, oldest first.
+     */
+    private List<Path> readyFiles() throws IOException {
+        Map<Path, FileState> current = new HashMap<>();
+        List<Path> ready = new ArrayList<>();
+        long modifiedBefore = clock.millis() - quietPeriod.toMillis();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(inputDirectory, "*.{csv,csv.gz}")) {
+            for (Path file : files) {
+                FileState state;
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    state = new FileState(attributes.size(), attributes.lastModifiedTime().toMillis());
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                current.put(file, state);
+                boolean complete = tail || (state.equals(seen.get(file)) && state.lastModified() <= modifiedBefore);
+                if (!complete || state.equals(launched.get(file))) {
+                    continue;
+                }
+                String name = file.getFileName().toString();
+                if (name.contains(",") || name.length() > MAX_PARAMETER_LENGTH) {
+                    log.warn("Ignoring {}: its name cannot be passed in the {} parameter",
+                            file, MultiFileReaderConfig.INPUT_FILES_PARAMETER);
+                    launched.put(file, state);
+                } else {
+                    ready.add(file);
+                }
+            }
+        }
+        seen = current;
+        launched.keySet().retainAll(current.keySet());
+        ready.sort(Comparator.comparingLong((Path file) -> current.get(file).lastModified()).thenComparing(Path::getFileName));
+        return ready;
+    }
+
+    private void launch(List<Path> files, String names) {
+        var parameters = new JobParametersBuilder()
+                .addString(MultiFileReaderConfig.INPUT_FILES_PARAMETER, names);
+        if (tail) {
+            parameters.addLong(LAUNCH_TIME_PARAMETER, clock.millis());
+        } else {
+            parameters.addString(FINGERPRINT_PARAMETER, fingerprint(files));
+        }
+        log.info("Importing {} files: {}", files.size(), names);
+        for (Path file : files) {
+            launched.put(file, seen.get(file));
+        }
+        try {
+            JobExecution execution = run(parameters.toJobParameters(), names);
+            if (execution.getStatus() != BatchStatus.COMPLETED) {
+                log.warn("Import of {} ended with status {}, files are retried once they change",
+                        names, execution.getStatus());
+            } else if (!tail) {
+                Resource[] resources = files.stream().map(FileSystemResource::new).toArray(Resource[]::new);
+                processedFileRenamer.renameProcessedFiles(resources);
+            }
+        } catch (Exception e) {
+            log.error("Failed to launch import of {}, files are retried once they change", names, e);
+        }
+    }
+
+    /**
+     * Starts the job instance of the parameters, restarts it if it failed or stopped, or
+     * returns its last execution if it already completed.
+     */
+    private JobExecution run(JobParameters parameters, String names) throws Exception {
+        JobExecution last = jobRepository.getLastJobExecution(temperatureImportJob.getName(), parameters);
+        if (last == null) {
+            return jobOperator.start(temperatureImportJob, parameters);
+        }
+        if (last.getStatus() == BatchStatus.COMPLETED) {
+            log.info("Import of {} already completed in job execution {}", names, last.getId());
+            return last;
+        }
+        if (last.getStatus() == BatchStatus.FAILED || last.getStatus() == BatchStatus.STOPPED) {
+            log.info("Restarting {} import of {} from job execution {}", last.getStatus(), names, last.getId());
+            return jobOperator.restart(last);
+        }
+        // Still running in another JVM, or abandoned
+        return last;
+    }
+
+    /**
+     * Hash of the names, sizes and modification times of the files.
+     */
+    private String fingerprint(List<Path> files) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (Path file : files) {
+            FileState state = seen.get(file);
+            digest.update((file.getFileName() + "\0" + state.size() + "\0" + state.lastModified() + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private record FileState(long size, long lastModified) {
+    }
+}
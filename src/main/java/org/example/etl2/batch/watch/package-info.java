@@ -0,0 +1,4 @@
+/**
+ * Continuous import of files dropped into the input directory.
+ */
+package org.example.etl2.batch.watch;
@@ -0,0 +1,94 @@
+package org.example.etl2.batch.writer;
+
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.infrastructure.item.ItemWriter;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Isolates rows the database rejects without giving up the chunk. The chunk is written
+ * behind a savepoint; when a row violates a constraint the work since the savepoint is
+ * rolled back and both halves are written again, down to the single rejected rows.
+ * A chunk with one bad row therefore costs about 2 log2(n) extra writes instead of
+ * the rollback and one transaction per item of Spring Batch's chunk scan.
+ * <p>
+ * Rejected rows are removed from the chunk as skipped, so the step counts them as write
+ * skips and passes them to the skip listeners. Errors other than
+ * {@link DataIntegrityViolationException} are rethrown and handled by the step as
+ * before. The delegate must only report its results once its write succeeded.
+ */
+public class BisectingItemWriter<T> implements ItemWriter<T> {
+
+    private final ItemWriter<T> delegate;
+    private final DataSource dataSource;
+
+    public BisectingItemWriter(ItemWriter<T> delegate, DataSource dataSource) {
+        this.delegate = delegate;
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void write(Chunk<? extends T> chunk) throws Exception {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            delegate.write(chunk);
+            return;
+        }
+
+        Map<T, Throwable> rejected = new IdentityHashMap<>();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            write(connection, new ArrayList<>(chunk.getItems()), rejected);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+
+        if (!rejected.isEmpty()) {
+            for (var iterator = chunk.iterator(); iterator.hasNext(); ) {
+                Throwable exception = rejected.get(iterator.next());
+                if (exception != null) {
+                    iterator.remove(exception);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the items behind a savepoint, which is released once they are written, or
+     * rolled back to and released once their halves are.
+     */
+    private void write(Connection connection, List<T> items, Map<T, Throwable> rejected) throws Exception {
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            delegate.write(new Chunk<>(items));
+        } catch (DataIntegrityViolationException e) {
+            rollback(connection, savepoint, e);
+            if (items.size() == 1) {
+                rejected.put(items.getFirst(), e);
+            } else {
+                int middle = items.size() / 2;
+                write(connection, items.subList(0, middle), rejected);
+                write(connection, items.subList(middle, items.size()), rejected);
+            }
+        }
+        connection.releaseSavepoint(savepoint);
+    }
+
+    private static void rollback(Connection connection, Savepoint savepoint, Exception cause) throws SQLException {
+        try {
+            connection.rollback(savepoint);
+        } catch (SQLException e) {
+            e.addSuppressed(cause);
+            throw e;
+        }
+    }
+}
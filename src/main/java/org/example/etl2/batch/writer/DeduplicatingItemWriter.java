@@ -0,0 +1,135 @@
+package org.example.etl2.batch.writer;
+
+import org.example.etl2.model.TemperatureReading;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.infrastructure.item.ItemWriter;
+import org.springframework.batch.infrastructure.item.SkipWrapper;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drops readings whose {@code (name, datetime)} already occurred earlier in the same
+ * chunk or in a committed chunk of the same step, before they are sent to the
+ * delegate. The {@link StationDictionary} id and the epoch second are packed into a
+ * {@code long} key held in a {@link LongHashSet}. The first occurrence is written and
+ * later ones are reported as duplicates, which is what {@code INSERT IGNORE} would do
+ * with them.
+ * <p>
+ * Keys of a chunk only become visible to later chunks once its transaction commits,
+ * so readings of a rolled back chunk are not mistaken for duplicates when the chunk is
+ * retried. When the number of remembered keys reaches the limit the set is cleared and
+ * the database resolves any later duplicates. Not thread-safe; use one per step.
+ */
+public class DeduplicatingItemWriter implements ItemWriter<TemperatureReading> {
+
+    private static final int SECOND_BITS = 34;
+    /** Shifts epoch seconds so that years 1698 to 2242 fit into {@link #SECOND_BITS}. */
+    private static final long SECOND_OFFSET = 1L << (SECOND_BITS - 1);
+    private static final long SECOND_MASK = (1L << SECOND_BITS) - 1;
+
+    private final ItemWriter<TemperatureReading> delegate;
+    private final StationDictionary stationDictionary;
+    private final DuplicateReporter duplicateReporter;
+    private final int maxKeys;
+
+    private final LongHashSet committedKeys;
+    private final LongHashSet chunkKeys;
+
+    public DeduplicatingItemWriter(ItemWriter<TemperatureReading> delegate, StationDictionary stationDictionary,
+                                   DuplicateReporter duplicateReporter, int maxKeys) {
+        this.delegate = delegate;
+        this.stationDictionary = stationDictionary;
+        this.duplicateReporter = duplicateReporter;
+        this.maxKeys = maxKeys;
+        this.committedKeys = new LongHashSet(1024);
+        this.chunkKeys = new LongHashSet(1024);
+    }
+
+    @Override
+    public void write(Chunk<? extends TemperatureReading> chunk) throws Exception {
+        chunkKeys.clear();
+        List<? extends TemperatureReading> items = chunk.getItems();
+        int[] stationIds = stationDictionary.ids(items);
+        List<TemperatureReading> unique = new ArrayList<>(items.size());
+        List<TemperatureReading> duplicates = new ArrayList<>();
+
+        for (int i = 0; i < stationIds.length; i++) {
+            TemperatureReading item = items.get(i);
+            long key = key(stationIds[i], item.datetime());
+            if (key < 0 || (!committedKeys.contains(key) && chunkKeys.add(key))) {
+                unique.add(item);
+            } else {
+                duplicates.add(item);
+            }
+        }
+
+        Chunk<TemperatureReading> written = new Chunk<>(unique);
+        delegate.write(written);
+        if (written.getSkipsSize() > 0) {
+            skip(chunk, written.getSkips());
+            // Rejected readings were not stored, so their keys must not be remembered
+            chunkKeys.clear();
+            int[] writtenStationIds = stationDictionary.ids(written.getItems());
+            for (int i = 0; i < writtenStationIds.length; i++) {
+                chunkKeys.add(key(writtenStationIds[i], written.getItems().get(i).datetime()));
+            }
+        }
+        duplicateReporter.reportDuplicates(duplicates);
+        rememberOnCommit();
+    }
+
+    /**
+     * Passes readings the delegate skipped on to the step's chunk.
+     */
+    private static void skip(Chunk<? extends TemperatureReading> chunk, List<SkipWrapper<TemperatureReading>> skips) {
+        Map<TemperatureReading, Throwable> skipped = new IdentityHashMap<>();
+        for (SkipWrapper<TemperatureReading> skip : skips) {
+            skipped.put(skip.getItem(), skip.getException());
+        }
+        for (var iterator = chunk.iterator(); iterator.hasNext(); ) {
+            Throwable exception = skipped.get(iterator.next());
+            if (exception != null) {
+                iterator.remove(exception);
+            }
+        }
+    }
+
+    /**
+     * @return the packed key, or -1 if the datetime is out of the packable range
+     */
+    static long key(int stationId, LocalDateTime datetime) {
+        long second = datetime.toEpochSecond(ZoneOffset.UTC) + SECOND_OFFSET;
+        if ((second & ~SECOND_MASK) != 0) {
+            return -1;
+        }
+        return (long) stationId << SECOND_BITS | second;
+    }
+
+    private void rememberOnCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remember();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remember();
+            }
+        });
+    }
+
+    private void remember() {
+        if (committedKeys.size() + chunkKeys.size() > maxKeys) {
+            committedKeys.clear();
+        }
+        committedKeys.addAll(chunkKeys);
+        chunkKeys.clear();
+    }
+}
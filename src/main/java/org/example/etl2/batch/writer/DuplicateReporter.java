@@ -0,0 +1,127 @@
+package org.example.etl2.batch.writer;
+
+import org.example.etl2.batch.listener.DuplicateLogWriter;
+import org.example.etl2.batch.listener.ImportMetrics;
+import org.example.etl2.batch.listener.JobCompletionListener;
+import org.example.etl2.model.TemperatureReading;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records rows that {@code INSERT IGNORE} dropped because of the {@code uk_station_datetime}
+ * unique key: they are counted for the job summary and the import metrics and written to
+ * the duplicate log.
+ * <p>
+ * Within a transaction the duplicates are held back until it commits and dropped when
+ * it rolls back, so the rows of a chunk that is retried or scanned item by item are
+ * only reported by the attempt that committed.
+ */
+@Component
+public class DuplicateReporter {
+
+    private final DuplicateLogWriter duplicateLogWriter;
+    private final JobCompletionListener jobCompletionListener;
+    private final ImportMetrics importMetrics;
+
+    public DuplicateReporter(DuplicateLogWriter duplicateLogWriter, JobCompletionListener jobCompletionListener,
+                             ImportMetrics importMetrics) {
+        this.duplicateLogWriter = duplicateLogWriter;
+        this.jobCompletionListener = jobCompletionListener;
+        this.importMetrics = importMetrics;
+    }
+
+    /**
+     * Records duplicates that are known row by row. The log is written in the background.
+     */
+    public void reportDuplicates(List<? extends TemperatureReading> duplicates) {
+        if (duplicates.isEmpty()) {
+            return;
+        }
+        PendingDuplicates pending = pending();
+        if (pending != null) {
+            pending.rows.addAll(duplicates);
+            pending.count += duplicates.size();
+        } else {
+            publish(duplicates, duplicates.size(), 0);
+        }
+    }
+
+    /**
+     * Records a reading that was dropped before it reached the writer because the row is
+     * already stored. Unlike the other duplicates it is not part of the write count.
+     */
+    public void reportFilteredDuplicate(TemperatureReading duplicate) {
+        PendingDuplicates pending = pending();
+        if (pending != null) {
+            pending.rows.add(duplicate);
+            pending.filtered++;
+        } else {
+            publish(List.of(duplicate), 0, 1);
+        }
+    }
+
+    /**
+     * Records duplicates that are only known as a count, for statements inserting
+     * several rows at once.
+     */
+    public void reportDuplicateCount(long count) {
+        if (count <= 0) {
+            return;
+        }
+        PendingDuplicates pending = pending();
+        if (pending != null) {
+            pending.count += count;
+        } else {
+            publish(List.of(), count, 0);
+        }
+    }
+
+    private void publish(List<? extends TemperatureReading> rows, long count, long filtered) {
+        for (TemperatureReading row : rows) {
+            duplicateLogWriter.writeDuplicate(row);
+        }
+        if (count > 0) {
+            jobCompletionListener.addDuplicates(count);
+        }
+        if (filtered > 0) {
+            jobCompletionListener.addFilteredDuplicates(filtered);
+        }
+        importMetrics.recordDuplicates(count + filtered);
+    }
+
+    /**
+     * @return the duplicates held back for the current transaction, or {@code null} outside a transaction
+     */
+    private PendingDuplicates pending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        var pending = (PendingDuplicates) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            PendingDuplicates created = new PendingDuplicates();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(DuplicateReporter.this);
+                    if (status == STATUS_COMMITTED) {
+                        publish(created.rows, created.count, created.filtered);
+                    }
+                }
+            });
+            pending = created;
+        }
+        return pending;
+    }
+
+    private static final class PendingDuplicates {
+
+        private final List<TemperatureReading> rows = new ArrayList<>();
+        private long count;
+        private long filtered;
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.etl2.batch.writer;
+
+import org.example.etl2.model.TemperatureReading;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.infrastructure.item.ItemWriter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a chunk as a JDBC batch of single-row {@code INSERT IGNORE} statements. The
+ * update count of every statement tells whether its row was inserted or dropped as a
+ * duplicate, so duplicates are identified exactly without querying the table.
+ * <p>
+ * When the driver rewrites the batch ({@code rewriteBatchedStatements=true}) it no longer
+ * returns per-row counts, and duplicates cannot be identified.
+ * <p>
+ * With a {@link RollupUpdater} the inserted rows are added to the rollups, which are
+ * flushed in the same transaction once the batch went through. Rollups need the per-row
+ * counts, so a rewritten batch fails the write instead of counting duplicates twice.
+ */
+public class InsertIgnoreBatchItemWriter implements ItemWriter<TemperatureReading> {
+
+    private static final String INSERT_SQL = """
+            INSERT IGNORE INTO temperature_data (station_id, datetime, temp)
+            VALUES (?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StationDictionary stationDictionary;
+    private final DuplicateReporter duplicateReporter;
+    private final RollupUpdater rollupUpdater;
+
+    public InsertIgnoreBatchItemWriter(JdbcTemplate jdbcTemplate, StationDictionary stationDictionary,
+                                       DuplicateReporter duplicateReporter) {
+        this(jdbcTemplate, stationDictionary, duplicateReporter, null);
+    }
+
+    /**
+     * @param rollupUpdater receives the inserted rows, or {@code null} to keep no rollups
+     */
+    public InsertIgnoreBatchItemWriter(JdbcTemplate jdbcTemplate, StationDictionary stationDictionary,
+                                       DuplicateReporter duplicateReporter, RollupUpdater rollupUpdater) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stationDictionary = stationDictionary;
+        this.duplicateReporter = duplicateReporter;
+        this.rollupUpdater = rollupUpdater;
+    }
+
+    @Override
+    public void write(Chunk<? extends TemperatureReading> chunk) {
+        List<? extends TemperatureReading> items = chunk.getItems();
+        int[] stationIds = stationDictionary.ids(items);
+        int[] updateCounts = jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                TemperatureReading item = items.get(i);
+                ps.setInt(1, stationIds[i]);
+                ps.setTimestamp(2, Timestamp.valueOf(item.datetime()));
+                ps.setBigDecimal(3, item.temp());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return items.size();
+            }
+        });
+
+        List<TemperatureReading> duplicates = new ArrayList<>();
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == 0) {
+                duplicates.add(items.get(i));
+            } else if (rollupUpdater != null) {
+                if (updateCounts[i] == Statement.SUCCESS_NO_INFO) {
+                    throw new IllegalStateException(
+                            "Rollups need per-row update counts, disable rewriteBatchedStatements");
+                }
+                TemperatureReading item = items.get(i);
+                rollupUpdater.add(stationIds[i], item.datetime(), item.temp());
+            }
+        }
+        if (rollupUpdater != null) {
+            rollupUpdater.flush();
+        }
+        duplicateReporter.reportDuplicates(duplicates);
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.etl2.batch.writer;
+
+import org.example.etl2.model.TemperatureReading;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.infrastructure.item.ItemWriter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reorders a chunk by station name and datetime, so the readings of a station are
+ * inserted one after the other in the order of {@code uk_station_datetime} instead of
+ * jumping between the index pages of interleaved stations. Concurrent writers also take
+ * their index locks in the same order, which makes lock waits less likely to turn into
+ * deadlocks.
+ * <p>
+ * The chunk is sorted on the station name rather than the station id, so it needs no
+ * lookup of its own; the delegate resolves the ids once. Stations are then visited in
+ * name order instead of id order, which keeps the lock order the same for every writer.
+ * The sort is stable, so readings with the same key keep their order and the first of
+ * them is still the one inserted. A chunk already in key order is passed on as it is.
+ * The delegate gets a new chunk, so it must not skip items.
+ */
+public class KeySortingItemWriter implements ItemWriter<TemperatureReading> {
+
+    static final Comparator<TemperatureReading> KEY_ORDER =
+            Comparator.comparing(TemperatureReading::name).thenComparing(TemperatureReading::datetime);
+
+    private final ItemWriter<TemperatureReading> delegate;
+
+    public KeySortingItemWriter(ItemWriter<TemperatureReading> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void write(Chunk<? extends TemperatureReading> chunk) throws Exception {
+        List<? extends TemperatureReading> items = chunk.getItems();
+        boolean sorted = true;
+        for (int i = 1; i < items.size() && sorted; i++) {
+            sorted = KEY_ORDER.compare(items.get(i - 1), items.get(i)) <= 0;
+        }
+        if (sorted) {
+            delegate.write(chunk);
+            return;
+        }
+
+        List<TemperatureReading> reordered = new ArrayList<>(items);
+        reordered.sort(KEY_ORDER);
+        delegate.write(new Chunk<>(reordered));
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.etl2.batch.writer;
+
+import com.mysql.cj.jdbc.JdbcStatement;
+import org.example.etl2.model.TemperatureReading;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.infrastructure.item.ItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.StatementCallback;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes a chunk with a single {@code LOAD DATA LOCAL INFILE} statement. The rows are
+ * encoded as tab separated values into a reused buffer and streamed to the server
+ * from memory, so no temporary file is written.
+ * <p>
+ * Requires {@code allowLoadLocalInfile=true} on the JDBC URL and {@code local_infile}
+ * enabled on the server. The affected row count only tells how many rows were dropped
+ * as duplicates, so duplicates are counted but not logged row by row. Instances are
+ * not thread-safe; use one per step.
+ */
+public class LoadDataItemWriter implements ItemWriter<TemperatureReading> {
+
+    private static final String LOAD_DATA_SQL = """
+            LOAD DATA LOCAL INFILE 'temperature_data.tsv'
+            IGNORE INTO TABLE temperature_data
+            CHARACTER SET utf8mb4
+            (station_id, datetime, temp)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StationDictionary stationDictionary;
+    private final DuplicateReporter duplicateReporter;
+
+    private byte[] buffer = new byte[64 * 1024];
+    private int length;
+
+    public LoadDataItemWriter(JdbcTemplate jdbcTemplate, StationDictionary stationDictionary,
+                              DuplicateReporter duplicateReporter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stationDictionary = stationDictionary;
+        this.duplicateReporter = duplicateReporter;
+    }
+
+    @Override
+    public void write(Chunk<? extends TemperatureReading> chunk) {
+        List<? extends TemperatureReading> items = chunk.getItems();
+        int[] stationIds = stationDictionary.ids(items);
+        length = 0;
+        for (int i = 0; i < stationIds.length; i++) {
+            TemperatureReading item = items.get(i);
+            appendInt(stationIds[i]);
+            append('\t');
+            appendDateTime(item.datetime());
+            append('\t');
+            appendAscii(item.temp().toPlainString());
+            append('\n');
+        }
+
+        Integer inserted = jdbcTemplate.execute((StatementCallback<Integer>) statement -> {
+            statement.unwrap(JdbcStatement.class)
+                    .setLocalInfileInputStream(new ByteArrayInputStream(buffer, 0, length));
+            return statement.executeUpdate(LOAD_DATA_SQL);
+        });
+        duplicateReporter.reportDuplicateCount(chunk.size() - inserted);
+    }
+
+    private void appendDateTime(LocalDateTime datetime) {
+        appendDigits(datetime.getYear(), 4);
+        append('-');
+        appendDigits(datetime.getMonthValue(), 2);
+        append('-');
+        appendDigits(datetime.getDayOfMonth(), 2);
+        append(' ');
+        appendDigits(datetime.getHour(), 2);
+        append(':');
+        appendDigits(datetime.getMinute(), 2);
+        append(':');
+        appendDigits(datetime.getSecond(), 2);
+    }
+
+    private void appendInt(int value) {
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        appendDigits(value, digits);
+    }
+
+    private void appendDigits(int value, int digits) {
+        ensureCapacity(digits);
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer[length + i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    private void appendAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            append(value.charAt(i));
+        }
+    }
+
+    private void append(int b) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) b;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.etl2.batch.writer;
+
+import org.example.etl2.model.TemperatureReading;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.infrastructure.item.ItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Writes a chunk with as few multi-row {@code INSERT IGNORE} statements as possible.
+ * Statements are split so that the SQL sent to the server stays below
+ * {@code max_allowed_packet} and below the placeholder limit of a prepared statement.
+ * <p>
+ * The update count of a statement only tells how many of its rows were dropped as
+ * duplicates, not which ones, so duplicates are counted but not logged row by row.
+ * Instances are not thread-safe; use one per step.
+ */
+public class MultiRowInsertItemWriter implements ItemWriter<TemperatureReading> {
+
+    private static final String INSERT_PREFIX = "INSERT IGNORE INTO temperature_data (station_id, datetime, temp) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?)";
+    private static final int MAX_PLACEHOLDERS = 65_535;
+    private static final int MAX_ROWS_PER_STATEMENT = MAX_PLACEHOLDERS / 3;
+    /** Upper bound of the bytes of a row literal: station id, datetime, temperature and separators. */
+    private static final int ROW_BYTES = 48;
+    /** Room for the statement prefix and protocol headers. */
+    private static final int PACKET_RESERVE = 4 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StationDictionary stationDictionary;
+    private final DuplicateReporter duplicateReporter;
+
+    private long maxStatementBytes;
+    private String cachedSql;
+    private int cachedRows;
+
+    public MultiRowInsertItemWriter(JdbcTemplate jdbcTemplate, StationDictionary stationDictionary,
+                                    DuplicateReporter duplicateReporter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stationDictionary = stationDictionary;
+        this.duplicateReporter = duplicateReporter;
+    }
+
+    @Override
+    public void write(Chunk<? extends TemperatureReading> chunk) {
+        List<? extends TemperatureReading> items = chunk.getItems();
+        int[] stationIds = stationDictionary.ids(items);
+        int rowsPerStatement = (int) Math.min(MAX_ROWS_PER_STATEMENT, maxStatementBytes() / ROW_BYTES);
+
+        int inserted = 0;
+        for (int from = 0; from < items.size(); from += rowsPerStatement) {
+            int to = Math.min(from + rowsPerStatement, items.size());
+            inserted += insert(items, stationIds, from, to);
+        }
+        // Reported once all statements succeeded, as a failed chunk is written again
+        duplicateReporter.reportDuplicateCount(items.size() - inserted);
+    }
+
+    /**
+     * @return the number of rows inserted, not counting rows ignored as duplicates
+     */
+    private int insert(List<? extends TemperatureReading> items, int[] stationIds, int from, int to) {
+        return jdbcTemplate.update(sql(to - from), (PreparedStatement ps) -> {
+            int index = 1;
+            for (int i = from; i < to; i++) {
+                index = bind(ps, index, stationIds[i], items.get(i));
+            }
+        });
+    }
+
+    private static int bind(PreparedStatement ps, int index, int stationId, TemperatureReading row)
+            throws SQLException {
+        ps.setInt(index++, stationId);
+        ps.setTimestamp(index++, Timestamp.valueOf(row.datetime()));
+        ps.setBigDecimal(index++, row.temp());
+        return index;
+    }
+
+    private String sql(int rows) {
+        if (rows != cachedRows) {
+            StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * (ROW_PLACEHOLDERS.length() + 2));
+            sql.append(INSERT_PREFIX);
+            for (int i = 0; i < rows; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(ROW_PLACEHOLDERS);
+            }
+            cachedSql = sql.toString();
+            cachedRows = rows;
+        }
+        return cachedSql;
+    }
+
+    private long maxStatementBytes() {
+        if (maxStatementBytes == 0) {
+            Long maxAllowedPacket = jdbcTemplate.queryForObject("SELECT @@max_allowed_packet", Long.class);
+            maxStatementBytes = Math.max(maxAllowedPacket - PACKET_RESERVE, ROW_BYTES);
+        }
+        return maxStatementBytes;
+    }
+}
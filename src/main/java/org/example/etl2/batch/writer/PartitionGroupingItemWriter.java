@@ -0,0 +1,56 @@
+package org.example.etl2.batch.writer;
+
+import org.example.etl2.model.TemperatureReading;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.infrastructure.item.ItemWriter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reorders a chunk so that readings of the same month, and so of the same partition of
+ * {@code temperature_data}, are written one after the other. Inserts then work on one
+ * partition's indexes at a time instead of alternating between them. Readings keep their
+ * order within a month, and a chunk already in month order is passed on as it is.
+ * <p>
+ * The months are sorted as primitive keys holding the month and the position of the
+ * reading. The delegate gets a new chunk, so it must not skip items.
+ */
+public class PartitionGroupingItemWriter implements ItemWriter<TemperatureReading> {
+
+    private final ItemWriter<TemperatureReading> delegate;
+
+    public PartitionGroupingItemWriter(ItemWriter<TemperatureReading> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void write(Chunk<? extends TemperatureReading> chunk) throws Exception {
+        List<? extends TemperatureReading> items = chunk.getItems();
+        long[] keys = new long[items.size()];
+        boolean grouped = true;
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (long) month(items.get(i)) << 32 | i;
+            grouped &= i == 0 || keys[i] >>> 32 >= keys[i - 1] >>> 32;
+        }
+        if (grouped) {
+            delegate.write(chunk);
+            return;
+        }
+
+        Arrays.sort(keys);
+        List<TemperatureReading> reordered = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            reordered.add(items.get((int) key));
+        }
+        delegate.write(new Chunk<>(reordered));
+    }
+
+    /**
+     * Months since year 0, never negative for a {@code DATETIME} value.
+     */
+    private static int month(TemperatureReading item) {
+        return item.datetime().getYear() * 12 + item.datetime().getMonthValue() - 1;
+    }
+}
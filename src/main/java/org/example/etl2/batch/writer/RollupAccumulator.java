@@ -0,0 +1,148 @@
+package org.example.etl2.batch.writer;
+
+import java.util.Arrays;
+
+/**
+ * Minimum, maximum, sum and count of temperatures per bucket, kept in parallel primitive
+ * arrays indexed by an open addressing table of {@code long} bucket keys. Temperatures
+ * are accumulated in tenths of a degree, the scale of {@code temperature_data.temp}, so
+ * sums are exact. Not thread-safe.
+ */
+final class RollupAccumulator {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private long[] min;
+    private long[] max;
+    private long[] sum;
+    /** Zero marks an empty slot, so any key value can be stored. */
+    private int[] count;
+    private int size;
+    private int resizeThreshold;
+
+    RollupAccumulator(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1);
+    }
+
+    void add(long key, long tenths) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (count[slot] != 0) {
+            if (keys[slot] == key) {
+                min[slot] = Math.min(min[slot], tenths);
+                max[slot] = Math.max(max[slot], tenths);
+                sum[slot] += tenths;
+                count[slot]++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        min[slot] = tenths;
+        max[slot] = tenths;
+        sum[slot] = tenths;
+        count[slot] = 1;
+        if (++size > resizeThreshold) {
+            resize();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the slots holding a bucket, ordered by bucket key
+     */
+    int[] sortedSlots() {
+        long[] sortedKeys = new long[size];
+        int n = 0;
+        for (int slot = 0; slot < count.length; slot++) {
+            if (count[slot] != 0) {
+                sortedKeys[n++] = keys[slot];
+            }
+        }
+        Arrays.sort(sortedKeys);
+
+        int[] slots = new int[size];
+        int mask = keys.length - 1;
+        for (int i = 0; i < sortedKeys.length; i++) {
+            int slot = mix(sortedKeys[i]) & mask;
+            while (keys[slot] != sortedKeys[i] || count[slot] == 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[i] = slot;
+        }
+        return slots;
+    }
+
+    long key(int slot) {
+        return keys[slot];
+    }
+
+    long min(int slot) {
+        return min[slot];
+    }
+
+    long max(int slot) {
+        return max[slot];
+    }
+
+    long sum(int slot) {
+        return sum[slot];
+    }
+
+    int count(int slot) {
+        return count[slot];
+    }
+
+    /**
+     * Removes all buckets, keeping the allocated capacity.
+     */
+    void clear() {
+        Arrays.fill(count, 0);
+        size = 0;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldMin = min;
+        long[] oldMax = max;
+        long[] oldSum = sum;
+        int[] oldCount = count;
+        allocate(oldKeys.length * 2);
+        int mask = keys.length - 1;
+        for (int old = 0; old < oldKeys.length; old++) {
+            if (oldCount[old] != 0) {
+                int slot = mix(oldKeys[old]) & mask;
+                while (count[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[old];
+                min[slot] = oldMin[old];
+                max[slot] = oldMax[old];
+                sum[slot] = oldSum[old];
+                count[slot] = oldCount[old];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        min = new long[capacity];
+        max = new long[capacity];
+        sum = new long[capacity];
+        count = new int[capacity];
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.etl2.batch.writer;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Keeps {@code temperature_hourly} and {@code temperature_daily} up to date with the
+ * rows a writer inserts. The writer adds every inserted row, then flushes in the same
+ * transaction; the buckets touched by the write are merged into the rollup tables with
+ * one upsert per bucket, so the rollups are committed or rolled back together with the
+ * rows. Rows dropped as duplicates must not be added, which keeps the rollups right when
+ * a restarted step writes a chunk again.
+ * <p>
+ * Buckets are upserted in key order, so concurrent writers lock rollup rows in the same
+ * order. Not thread-safe, every writer needs its own instance.
+ */
+public class RollupUpdater {
+
+    private static final String UPSERT_HOURLY_SQL = """
+            INSERT INTO temperature_hourly (station_id, period_start, min_temp, max_temp, sum_temp, reading_count)
+            VALUES (?, ?, ?, ?, ?, ?) AS new
+            ON DUPLICATE KEY UPDATE
+                min_temp = LEAST(temperature_hourly.min_temp, new.min_temp),
+                max_temp = GREATEST(temperature_hourly.max_temp, new.max_temp),
+                sum_temp = temperature_hourly.sum_temp + new.sum_temp,
+                reading_count = temperature_hourly.reading_count + new.reading_count
+            """;
+
+    private static final String UPSERT_DAILY_SQL = """
+            INSERT INTO temperature_daily (station_id, period_start, min_temp, max_temp, sum_temp, reading_count)
+            VALUES (?, ?, ?, ?, ?, ?) AS new
+            ON DUPLICATE KEY UPDATE
+                min_temp = LEAST(temperature_daily.min_temp, new.min_temp),
+                max_temp = GREATEST(temperature_daily.max_temp, new.max_temp),
+                sum_temp = temperature_daily.sum_temp + new.sum_temp,
+                reading_count = temperature_daily.reading_count + new.reading_count
+            """;
+
+    private static final int SECONDS_PER_HOUR = 3600;
+    private static final int SECONDS_PER_DAY = 86400;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RollupAccumulator hourly = new RollupAccumulator(256);
+    private final RollupAccumulator daily = new RollupAccumulator(64);
+
+    public RollupUpdater(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds an inserted row to its hourly and daily bucket.
+     */
+    public void add(int stationId, LocalDateTime datetime, BigDecimal temp) {
+        long second = datetime.toEpochSecond(ZoneOffset.UTC);
+        long tenths = tenths(temp);
+        hourly.add(key(stationId, Math.floorDiv(second, SECONDS_PER_HOUR)), tenths);
+        daily.add(key(stationId, Math.floorDiv(second, SECONDS_PER_DAY)), tenths);
+    }
+
+    /**
+     * Merges the added rows into the rollup tables and starts over.
+     */
+    public void flush() {
+        try {
+            upsert(UPSERT_HOURLY_SQL, hourly, (ps, period) ->
+                    ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.ofEpochSecond(period * SECONDS_PER_HOUR, 0, ZoneOffset.UTC))));
+            upsert(UPSERT_DAILY_SQL, daily, (ps, period) ->
+                    ps.setDate(2, Date.valueOf(LocalDate.ofEpochDay(period))));
+        } finally {
+            hourly.clear();
+            daily.clear();
+        }
+    }
+
+    private void upsert(String sql, RollupAccumulator buckets, PeriodSetter periodSetter) {
+        if (buckets.isEmpty()) {
+            return;
+        }
+        int[] slots = buckets.sortedSlots();
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                int slot = slots[i];
+                long key = buckets.key(slot);
+                ps.setInt(1, (int) (key >>> 32));
+                periodSetter.set(ps, (key & 0xFFFFFFFFL) + Integer.MIN_VALUE);
+                ps.setBigDecimal(3, BigDecimal.valueOf(buckets.min(slot), 1));
+                ps.setBigDecimal(4, BigDecimal.valueOf(buckets.max(slot), 1));
+                ps.setBigDecimal(5, BigDecimal.valueOf(buckets.sum(slot), 1));
+                ps.setInt(6, buckets.count(slot));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return slots.length;
+            }
+        });
+    }
+
+    /**
+     * Packs a station id and a period number, hours or days since the epoch, into a key
+     * that sorts by station and then period.
+     */
+    static long key(int stationId, long period) {
+        return (long) stationId << 32 | (period - Integer.MIN_VALUE);
+    }
+
+    /**
+     * Temperature in tenths of a degree, rounded like MySQL stores it in
+     * {@code DECIMAL(5,1)}. Does not allocate for values that already have one decimal.
+     */
+    static long tenths(BigDecimal temp) {
+        return Math.round(temp.setScale(1, RoundingMode.HALF_UP).doubleValue() * 10);
+    }
+
+    @FunctionalInterface
+    private interface PeriodSetter {
+        void set(PreparedStatement ps, long period) throws SQLException;
+    }
+}
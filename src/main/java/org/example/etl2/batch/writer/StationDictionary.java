@@ -0,0 +1,106 @@
+package org.example.etl2.batch.writer;
+
+import org.example.etl2.model.TemperatureReading;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves station names to the ids of the {@code station} table. The whole table is
+ * loaded into a concurrent cache on first use; names missing from it are inserted in
+ * one statement per chunk.
+ * <p>
+ * New stations are inserted and committed in a transaction of their own, so their ids
+ * are visible to other steps right away and stay valid when the chunk that introduced
+ * them is rolled back. This takes a second pooled connection while the chunk transaction
+ * holds its own, which the connection pool is sized for in
+ * {@link org.example.etl2.config.TaskExecutorConfig}. The name column uses a case- and accent-insensitive collation,
+ * so names the database considers equal resolve to the same id.
+ */
+@Component
+public class StationDictionary {
+
+    private static final String SELECT_ALL_SQL = "SELECT id, name FROM station";
+    private static final String INSERT_SQL = "INSERT IGNORE INTO station (name) VALUES ";
+    private static final String SELECT_BY_NAMES_SQL = "SELECT id, name FROM station WHERE name IN ";
+    private static final String SELECT_BY_NAME_SQL = "SELECT id FROM station WHERE name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public StationDictionary(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * @return the station id of every item, in the order of the items
+     */
+    public int[] ids(List<? extends TemperatureReading> items) {
+        load();
+
+        Set<String> missing = null;
+        for (TemperatureReading item : items) {
+            if (!ids.containsKey(item.name())) {
+                if (missing == null) {
+                    missing = new LinkedHashSet<>();
+                }
+                missing.add(item.name());
+            }
+        }
+        if (missing != null) {
+            create(missing);
+        }
+
+        int[] result = new int[items.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids.get(items.get(i).name());
+        }
+        return result;
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                jdbcTemplate.query(SELECT_ALL_SQL, rs -> {
+                    ids.putIfAbsent(rs.getString(2), rs.getInt(1));
+                });
+                loaded = true;
+            }
+        }
+    }
+
+    private void create(Collection<String> names) {
+        newTransaction.executeWithoutResult(status -> {
+            Object[] args = names.toArray();
+            jdbcTemplate.update(INSERT_SQL + String.join(", ", Collections.nCopies(args.length, "(?)")), args);
+            jdbcTemplate.query(SELECT_BY_NAMES_SQL + "(" + String.join(", ", Collections.nCopies(args.length, "?")) + ")",
+                    rs -> {
+                        ids.putIfAbsent(rs.getString(2), rs.getInt(1));
+                    }, args);
+            // Names stored with a different spelling that the collation considers equal
+            for (String name : names) {
+                if (!ids.containsKey(name)) {
+                    ids.putIfAbsent(name, jdbcTemplate.queryForObject(SELECT_BY_NAME_SQL, Integer.class, name));
+                }
+            }
+        });
+    }
+}
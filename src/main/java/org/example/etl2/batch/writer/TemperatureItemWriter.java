@@ -1,11 +1,12 @@
 package org.example.etl2.batch.writer;
 
 import org.example.etl2.model.TemperatureReading;
-import org.springframework.batch.infrastructure.item.database.BeanPropertyItemSqlParameterSourceProvider;
-import org.springframework.batch.infrastructure.item.database.JdbcBatchItemWriter;
-import org.springframework.batch.infrastructure.item.database.builder.JdbcBatchItemWriterBuilder;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.infrastructure.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import javax.sql.DataSource;
 
@@ -13,20 +14,72 @@ import javax.sql.DataSource;
 public class TemperatureItemWriter {
 
     private final DataSource dataSource;
+    private final DuplicateReporter duplicateReporter;
+    private final StationDictionary stationDictionary;
 
-    public TemperatureItemWriter(DataSource dataSource) {
+    @Value("${batch.writer.mode:batch}")
+    private WriterMode writerMode;
+
+    @Value("${batch.rollup.enabled:false}")
+    private boolean rollups;
+
+    @Value("${batch.writer.sort-by-key:false}")
+    private boolean sortByKey;
+
+    @Value("${batch.table-partitions.enabled:false}")
+    private boolean tablePartitions;
+
+    @Value("${batch.dedup.input.enabled:false}")
+    private boolean inputDeduplication;
+
+    @Value("${batch.dedup.input.max-keys:4000000}")
+    private int maxInputKeys;
+
+    public TemperatureItemWriter(DataSource dataSource, DuplicateReporter duplicateReporter,
+                                 StationDictionary stationDictionary) {
         this.dataSource = dataSource;
+        this.duplicateReporter = duplicateReporter;
+        this.stationDictionary = stationDictionary;
     }
 
+    /**
+     * Writer for the mode set with {@code batch.writer.mode}. Step scoped, so partitions
+     * running in parallel each get their own instance and buffers. Rows the database
+     * rejects are isolated by bisecting the chunk and skipped. With
+     * {@code batch.dedup.input.enabled} repeated readings of the step's input are dropped
+     * before they reach the database. With {@code batch.rollup.enabled} the inserted rows
+     * also update the hourly and daily rollups. With {@code batch.table-partitions.enabled}
+     * the rows are written grouped by the monthly partition of {@code temperature_data},
+     * and with {@code batch.writer.sort-by-key} ordered by station and datetime within it.
+     */
     @Bean
-    public JdbcBatchItemWriter<TemperatureReading> temperatureWriter() {
-        return new JdbcBatchItemWriterBuilder<TemperatureReading>()
-                .dataSource(dataSource)
-                .sql("""
-                        INSERT IGNORE INTO temperature_data (name, datetime, temp)
-                        VALUES (:name, :datetime, :temp)
-                        """)
-                .itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>())
-                .build();
+    @StepScope
+    public ItemWriter<TemperatureReading> temperatureWriter() {
+        ItemWriter<TemperatureReading> databaseWriter = databaseWriter();
+        if (tablePartitions) {
+            databaseWriter = new PartitionGroupingItemWriter(databaseWriter);
+        }
+        if (sortByKey) {
+            // Sorted before grouping, which keeps the key order within each month
+            databaseWriter = new KeySortingItemWriter(databaseWriter);
+        }
+        ItemWriter<TemperatureReading> writer = new BisectingItemWriter<>(databaseWriter, dataSource);
+        if (inputDeduplication) {
+            return new DeduplicatingItemWriter(writer, stationDictionary, duplicateReporter, maxInputKeys);
+        }
+        return writer;
+    }
+
+    private ItemWriter<TemperatureReading> databaseWriter() {
+        if (rollups && writerMode != WriterMode.BATCH) {
+            // Only the batch writer knows which rows were inserted and which were duplicates
+            throw new IllegalStateException("batch.rollup.enabled needs batch.writer.mode=batch, not " + writerMode);
+        }
+        return switch (writerMode) {
+            case BATCH -> new InsertIgnoreBatchItemWriter(new JdbcTemplate(dataSource), stationDictionary, duplicateReporter,
+                    rollups ? new RollupUpdater(new JdbcTemplate(dataSource)) : null);
+            case MULTI_ROW -> new MultiRowInsertItemWriter(new JdbcTemplate(dataSource), stationDictionary, duplicateReporter);
+            case LOAD_DATA -> new LoadDataItemWriter(new JdbcTemplate(dataSource), stationDictionary, duplicateReporter);
+        };
     }
 }
@@ -0,0 +1,16 @@
+package org.example.etl2.batch.writer;
+
+/**
+ * Selects how chunks are written to {@code temperature_data}, set with {@code batch.writer.mode}.
+ */
+public enum WriterMode {
+
+    /** One {@code INSERT IGNORE} statement per item, sent as a JDBC batch. */
+    BATCH,
+
+    /** Multi-row {@code INSERT IGNORE} statements sized to {@code max_allowed_packet}. */
+    MULTI_ROW,
+
+    /** {@code LOAD DATA LOCAL INFILE} streaming the chunk from memory. */
+    LOAD_DATA
+}
@@ -0,0 +1,14 @@
+package org.example.etl2.config;
+
+/**
+ * Selects the threads running partitions and async side work, set with
+ * {@code batch.executor.type}.
+ */
+public enum ExecutorType {
+
+    /** Fixed pool of {@code batch.partition.concurrency} platform threads. */
+    PLATFORM,
+
+    /** One virtual thread per task, limited by the connection pool size. */
+    VIRTUAL
+}
@@ -0,0 +1,57 @@
+package org.example.etl2.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class TaskExecutorConfig {
+
+    /** The chunk transaction and the transaction adding new stations. */
+    private static final int CONNECTIONS_PER_PARTITION = 2;
+
+    @Value("${batch.executor.type:platform}")
+    private ExecutorType executorType;
+
+    @Value("${batch.partition.concurrency:4}")
+    private int concurrency;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    /**
+     * Executor running the partitions of the import step. Each running partition holds one
+     * database connection for its chunk transaction and may need a second one while it
+     * holds it, as the {@link org.example.etl2.batch.writer.StationDictionary} commits new
+     * stations in a transaction of their own. The connection pool therefore needs two connections per
+     * partition; a smaller pool is refused at startup rather than letting partitions wait
+     * for each other's connections until the pool times out.
+     * <p>
+     * With virtual threads no pool has to be sized: tasks are limited to half of the
+     * connection pool instead.
+     */
+    @Bean
+    public TaskExecutor importTaskExecutor() {
+        if (executorType == ExecutorType.VIRTUAL) {
+            var executor = new SimpleAsyncTaskExecutor("import-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(Math.max(1, connectionPoolSize / CONNECTIONS_PER_PARTITION));
+            return executor;
+        }
+
+        if (CONNECTIONS_PER_PARTITION * concurrency > connectionPoolSize) {
+            throw new IllegalStateException("batch.partition.concurrency=" + concurrency + " needs a connection pool of "
+                    + CONNECTIONS_PER_PARTITION * concurrency + " connections, but spring.datasource.hikari.maximum-pool-size is "
+                    + connectionPoolSize);
+        }
+        var executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setThreadNamePrefix("import-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
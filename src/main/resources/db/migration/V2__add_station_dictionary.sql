@@ -0,0 +1,21 @@
+CREATE TABLE station (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    UNIQUE KEY uk_station_name (name)
+);
+
+INSERT INTO station (name)
+SELECT DISTINCT name FROM temperature_data;
+
+ALTER TABLE temperature_data ADD COLUMN station_id INT NULL AFTER id;
+
+UPDATE temperature_data t
+JOIN station s ON s.name = t.name
+SET t.station_id = s.id;
+
+ALTER TABLE temperature_data
+    MODIFY station_id INT NOT NULL,
+    DROP INDEX uk_name_datetime,
+    DROP COLUMN name,
+    ADD UNIQUE KEY uk_station_datetime (station_id, datetime),
+    ADD CONSTRAINT fk_temperature_data_station FOREIGN KEY (station_id) REFERENCES station (id);
@@ -0,0 +1,31 @@
+CREATE TABLE temperature_hourly (
+    station_id INT NOT NULL,
+    period_start DATETIME NOT NULL,
+    min_temp DECIMAL(5,1) NOT NULL,
+    max_temp DECIMAL(5,1) NOT NULL,
+    sum_temp DECIMAL(20,1) NOT NULL,
+    reading_count INT NOT NULL,
+    PRIMARY KEY (station_id, period_start),
+    CONSTRAINT fk_temperature_hourly_station FOREIGN KEY (station_id) REFERENCES station (id)
+);
+
+CREATE TABLE temperature_daily (
+    station_id INT NOT NULL,
+    period_start DATE NOT NULL,
+    min_temp DECIMAL(5,1) NOT NULL,
+    max_temp DECIMAL(5,1) NOT NULL,
+    sum_temp DECIMAL(20,1) NOT NULL,
+    reading_count INT NOT NULL,
+    PRIMARY KEY (station_id, period_start),
+    CONSTRAINT fk_temperature_daily_station FOREIGN KEY (station_id) REFERENCES station (id)
+);
+
+INSERT INTO temperature_hourly (station_id, period_start, min_temp, max_temp, sum_temp, reading_count)
+SELECT station_id, DATE_FORMAT(datetime, '%Y-%m-%d %H:00:00'), MIN(temp), MAX(temp), SUM(temp), COUNT(*)
+FROM temperature_data
+GROUP BY station_id, DATE_FORMAT(datetime, '%Y-%m-%d %H:00:00');
+
+INSERT INTO temperature_daily (station_id, period_start, min_temp, max_temp, sum_temp, reading_count)
+SELECT station_id, DATE(datetime), MIN(temp), MAX(temp), SUM(temp), COUNT(*)
+FROM temperature_data
+GROUP BY station_id, DATE(datetime);
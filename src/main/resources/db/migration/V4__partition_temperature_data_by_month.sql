@@ -0,0 +1,15 @@
+-- Partitioned InnoDB tables support neither foreign keys nor unique keys without the
+-- partitioning column, so the station reference is no longer enforced by the database
+-- and the primary key gains datetime. Monthly partitions are split off p_future by the
+-- partition maintenance step.
+ALTER TABLE temperature_data DROP FOREIGN KEY fk_temperature_data_station;
+
+ALTER TABLE temperature_data
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, datetime);
+
+ALTER TABLE temperature_data
+    PARTITION BY RANGE (TO_DAYS(datetime)) (
+        PARTITION p_past VALUES LESS THAN (TO_DAYS('1900-01-01')),
+        PARTITION p_future VALUES LESS THAN MAXVALUE
+    );
@@ -0,0 +1,10 @@
+-- Position up to which a growing input file has been imported, with the fingerprint
+-- that tells whether the file at that path is still the same file.
+CREATE TABLE input_file_offset (
+    file_name VARCHAR(700) NOT NULL PRIMARY KEY,
+    file_key VARCHAR(255) NULL,
+    head_hash BIGINT NOT NULL,
+    byte_offset BIGINT NOT NULL,
+    line_count INT NOT NULL,
+    updated_at DATETIME NOT NULL
+);
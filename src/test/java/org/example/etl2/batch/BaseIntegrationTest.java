@@ -1,5 +1,7 @@
 package org.example.etl2.batch;
 
+import org.springframework.batch.core.job.JobExecution;
+import org.springframework.batch.core.step.StepExecution;
 import org.springframework.batch.test.JobLauncherTestUtils;
 import org.springframework.batch.test.context.SpringBatchTest;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,21 +10,28 @@ import org.springframework.boot.testcontainers.service.connection.ServiceConnect
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.testcontainers.containers.MySQLContainer;
-import org.testcontainers.junit.jupiter.Container;
-import org.testcontainers.junit.jupiter.Testcontainers;
 
 @SpringBootTest
 @SpringBatchTest
-@Testcontainers
 @ActiveProfiles("test")
 public abstract class BaseIntegrationTest {
 
-    @Container
+    /**
+     * Shared by all test classes and started once, as the cached application contexts of
+     * the test classes keep pointing at it. Local infile is enabled for the
+     * {@code load-data} writer mode.
+     */
     @ServiceConnection
     static MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0")
             .withDatabaseName("testdb")
             .withUsername("test")
-            .withPassword("test");
+            .withPassword("test")
+            .withUrlParam("allowLoadLocalInfile", "true")
+            .withCommand("--local-infile=1");
+
+    static {
+        mysql.start();
+    }
 
     @Autowired
     protected JobLauncherTestUtils jobLauncherTestUtils;
@@ -38,4 +47,11 @@ public abstract class BaseIntegrationTest {
         Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM temperature_data", Long.class);
         return count != null ? count : 0;
     }
+
+    protected StepExecution importStepExecution(JobExecution jobExecution) {
+        return jobExecution.getStepExecutions().stream()
+                .filter(stepExecution -> stepExecution.getStepName().equals("importStep"))
+                .findFirst()
+                .orElseThrow();
+    }
 }
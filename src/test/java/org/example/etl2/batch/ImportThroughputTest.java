@@ -0,0 +1,158 @@
+package org.example.etl2.batch;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.job.JobExecution;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Imports a generated data set of production size and reports rows per second, peak
+ * heap and GC time. Only runs when asked for, as it takes minutes:
+ * <pre>
+ * ./mvnw test -Dtest=ImportThroughputTest -Dload.enabled=true
+ * </pre>
+ * The data set is sized with {@code load.stations} and {@code load.readings} (readings
+ * per station), the share of bad rows with {@code load.duplicate-ratio},
+ * {@code load.malformed-ratio} and {@code load.out-of-range-ratio}. Other import modes
+ * are measured by passing their properties as a comma separated list, for example
+ * {@code -Dload.properties=batch.writer.mode=multi-row,batch.partition.enabled=true}.
+ * <p>
+ * The InnoDB deadlocks and row lock waits during the import are reported as well, so
+ * settings meant to reduce lock contention can be compared before and after, for example
+ * {@code batch.writer.sort-by-key} with partitions writing in parallel:
+ * <pre>
+ * -Dload.properties=batch.partition.enabled=true,batch.writer.sort-by-key=false
+ * -Dload.properties=batch.partition.enabled=true,batch.writer.sort-by-key=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "load.enabled", matches = "true")
+class ImportThroughputTest extends BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportThroughputTest.class);
+
+    private static final Path INPUT_DIRECTORY = createInputDirectory();
+
+    @DynamicPropertySource
+    static void importProperties(DynamicPropertyRegistry registry) {
+        registry.add("batch.input.directory", INPUT_DIRECTORY::toString);
+        String properties = System.getProperty("load.properties", "");
+        for (String property : properties.split(",")) {
+            int separator = property.indexOf('=');
+            if (separator > 0) {
+                String value = property.substring(separator + 1).trim();
+                registry.add(property.substring(0, separator).trim(), () -> value);
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        clearDatabase();
+    }
+
+    @AfterAll
+    static void deleteInput() throws IOException {
+        FileSystemUtils.deleteRecursively(INPUT_DIRECTORY);
+    }
+
+    @Test
+    @DisplayName("Should import a generated data set and report its throughput")
+    void testThroughput() throws Exception {
+        // Given: a generated input file
+        var profile = new SyntheticDataGenerator.Profile(
+                Integer.getInteger("load.stations", 100),
+                Integer.getInteger("load.readings", 10_000),
+                Double.parseDouble(System.getProperty("load.duplicate-ratio", "0.01")),
+                Double.parseDouble(System.getProperty("load.malformed-ratio", "0.001")),
+                Double.parseDouble(System.getProperty("load.out-of-range-ratio", "0.001")),
+                1);
+        Path file = INPUT_DIRECTORY.resolve("load.csv");
+        SyntheticDataGenerator.Counts counts = SyntheticDataGenerator.write(profile, file);
+        long bytes = Files.size(file);
+
+        // When: importing it
+        System.gc();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+        long gcTimeBefore = gcTime();
+        long deadlocksBefore = innodbMetric("lock_deadlocks");
+        long lockWaitsBefore = innodbMetric("lock_row_lock_waits");
+        long start = System.nanoTime();
+        JobExecution jobExecution = jobLauncherTestUtils.launchJob();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long gcTime = gcTime() - gcTimeBefore;
+        long deadlocks = innodbMetric("lock_deadlocks") - deadlocksBefore;
+        long lockWaits = innodbMetric("lock_row_lock_waits") - lockWaitsBefore;
+
+        // Then: every valid row is stored once and every bad row skipped
+        assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        assertThat(countRecords()).isEqualTo(counts.valid());
+        assertThat(importStepExecution(jobExecution).getSkipCount()).isEqualTo(counts.malformed() + counts.outOfRange());
+
+        log.info("Imported {} lines ({} MB) in {} s: {} rows/s, {} MB/s, peak heap {} MB, GC time {} ms ({} %), "
+                        + "{} deadlocks, {} row lock waits",
+                counts.lines(), bytes >> 20, String.format("%.1f", seconds),
+                Math.round(counts.lines() / seconds), String.format("%.1f", bytes / seconds / (1 << 20)),
+                peakHeap() >> 20, gcTime, Math.round(gcTime / 10.0 / seconds), deadlocks, lockWaits);
+    }
+
+    /**
+     * Server wide InnoDB counter, both used here are enabled by default. Reading them
+     * needs the {@code PROCESS} privilege, so they are read as root.
+     */
+    private static long innodbMetric(String name) {
+        var root = new JdbcTemplate(new DriverManagerDataSource(mysql.getJdbcUrl(), "root", mysql.getPassword()));
+        return root.queryForObject(
+                "SELECT `COUNT` FROM information_schema.INNODB_METRICS WHERE NAME = ?", Long.class, name);
+    }
+
+    /**
+     * Sum of the peak usage of the heap pools since their last reset. The pools peak at
+     * different times, so this is an upper bound of the peak heap.
+     */
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(collector.getCollectionTime(), 0);
+        }
+        return time;
+    }
+
+    private static Path createInputDirectory() {
+        try {
+            return Files.createTempDirectory("etl2-load");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.etl2.batch;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the import scenarios with the {@code load-data} writer mode.
+ */
+@TestPropertySource(properties = "batch.writer.mode=load-data")
+class LoadDataWriterImportJobTest extends TemperatureImportJobTest {
+}
@@ -0,0 +1,10 @@
+package org.example.etl2.batch;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the import scenarios with the {@code multi-row} writer mode.
+ */
+@TestPropertySource(properties = "batch.writer.mode=multi-row")
+class MultiRowWriterImportJobTest extends TemperatureImportJobTest {
+}
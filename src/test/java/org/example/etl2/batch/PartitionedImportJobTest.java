@@ -0,0 +1,121 @@
+package org.example.etl2.batch;
+
+import org.example.etl2.batch.reader.InputFilePartitioner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.job.JobExecution;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Imports several files in parallel, one partition per file, with chunks small enough
+ * that every partition commits several of them.
+ */
+@TestPropertySource(properties = {"batch.partition.enabled=true", "batch.chunk-size=10"})
+@ExtendWith(OutputCaptureExtension.class)
+class PartitionedImportJobTest extends BaseIntegrationTest {
+
+    @Value("${batch.input.directory}")
+    private String inputDirectory;
+
+    private Path inputPath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        inputPath = Path.of(inputDirectory);
+        Files.createDirectories(inputPath);
+        try (var files = Files.list(inputPath)) {
+            for (Path file : files.filter(p -> p.toString().endsWith(".csv") || p.toString().endsWith(".csv.gz")).toList()) {
+                Files.delete(file);
+            }
+        }
+        clearDatabase();
+    }
+
+    @Test
+    @DisplayName("Should import files in parallel partitions and sum their counts in the job summary")
+    void testImportsFilesInParallel(CapturedOutput output) throws Exception {
+        // Given: three files of their own stations, one with two repeated rows and one with a malformed row
+        write("north.csv", "North", 40, 2, false);
+        write("south.csv", "South", 30, 0, true);
+        write("east.csv", "East", 20, 0, false);
+
+        // When: importing them
+        JobExecution jobExecution = jobLauncherTestUtils.launchJob();
+
+        // Then: every file was imported by a partition of its own
+        assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        Map<String, StepExecution> partitions = jobExecution.getStepExecutions().stream()
+                .filter(stepExecution -> stepExecution.getStepName().startsWith("importWorkerStep:"))
+                .collect(Collectors.toMap(PartitionedImportJobTest::fileName, Function.identity()));
+        assertThat(partitions).containsOnlyKeys("north.csv", "south.csv", "east.csv");
+        assertThat(partitions.values()).allSatisfy(partition ->
+                assertThat(partition.getStatus()).isEqualTo(BatchStatus.COMPLETED));
+
+        // And: each partition counted the rows of its file
+        assertCounts(partitions.get("north.csv"), 42, 42, 0);
+        assertCounts(partitions.get("south.csv"), 30, 30, 1);
+        assertCounts(partitions.get("east.csv"), 20, 20, 0);
+        assertCounts(importStepExecution(jobExecution), 92, 92, 1);
+
+        // And: the job summary combines the partitions, counting the repeated rows as duplicates
+        assertThat(output).contains("- Total records processed: 92", "- Successful inserts: 90",
+                "- Duplicates ignored: 2", "- Errors: 1");
+
+        // And: every distinct row is stored once
+        assertThat(countRecords()).isEqualTo(90);
+        assertThat(rowsOf("North%")).isEqualTo(40);
+        assertThat(rowsOf("South%")).isEqualTo(30);
+        assertThat(rowsOf("East%")).isEqualTo(20);
+    }
+
+    /**
+     * Writes {@code rows} distinct readings of five stations, then repeats the first
+     * {@code repeated} of them, and adds a row with an invalid datetime if asked to.
+     */
+    private void write(String file, String station, int rows, int repeated, boolean malformed) throws IOException {
+        StringBuilder content = new StringBuilder("name,datetime,temp\n");
+        for (int i = 0; i < rows + repeated; i++) {
+            int row = i < rows ? i : i - rows;
+            content.append(station).append('-').append(row % 5).append(',')
+                    .append(LocalDateTime.of(2024, 3, 1, 0, 0).plusHours(row)).append(",1.5\n");
+            if (malformed && i == rows / 2) {
+                content.append(station).append("-0,not-a-datetime,1.5\n");
+            }
+        }
+        Files.writeString(inputPath.resolve(file), content);
+    }
+
+    private static void assertCounts(StepExecution stepExecution, long read, long written, long skipped) {
+        assertThat(stepExecution.getReadCount()).isEqualTo(read);
+        assertThat(stepExecution.getWriteCount()).isEqualTo(written);
+        assertThat(stepExecution.getSkipCount()).isEqualTo(skipped);
+    }
+
+    private static String fileName(StepExecution partition) {
+        String url = partition.getExecutionContext().getString(InputFilePartitioner.FILE_NAME_KEY);
+        return url.substring(url.lastIndexOf('/') + 1);
+    }
+
+    private long rowsOf(String stationPattern) {
+        return jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM temperature_data d JOIN station s ON s.id = d.station_id
+                WHERE s.name LIKE ?""", Long.class, stationPattern);
+    }
+}
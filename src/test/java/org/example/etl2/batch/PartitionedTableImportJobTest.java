@@ -0,0 +1,88 @@
+package org.example.etl2.batch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.job.JobExecution;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Imports rows of several months, most of them older than the monthly partitions, with
+ * the table partitions maintained and checks which partition each row landed in.
+ */
+@TestPropertySource(properties = "batch.table-partitions.enabled=true")
+class PartitionedTableImportJobTest extends BaseIntegrationTest {
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    @Value("${batch.input.directory}")
+    private String inputDirectory;
+
+    private Path inputPath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        inputPath = Path.of(inputDirectory);
+        Files.createDirectories(inputPath);
+        try (var files = Files.list(inputPath)) {
+            for (Path file : files.filter(p -> p.toString().endsWith(".csv")).toList()) {
+                Files.delete(file);
+            }
+        }
+        clearDatabase();
+    }
+
+    @Test
+    @DisplayName("Should store the rows of an import spanning several months in their monthly partitions")
+    void testRowsLandInMonthlyPartitions() throws Exception {
+        // Given: rows of three past months, either side of a month boundary, and of the current month
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        Files.writeString(inputPath.resolve("months.csv"), """
+                name,datetime,temp
+                Partitioned,2023-11-20T10:00:00,1.0
+                Partitioned,2023-12-05T10:00:00,2.0
+                Partitioned,2024-01-31T23:59:59,3.0
+                Partitioned,2024-02-01T00:00:00,4.0
+                Partitioned,%sT12:00:00,5.0
+                """.formatted(current.atDay(1)));
+
+        // When: importing them
+        JobExecution jobExecution = jobLauncherTestUtils.launchJob();
+
+        // Then: every row is stored in the partition of its month, none in p_past or p_future
+        assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        assertThat(countRecords()).isEqualTo(5);
+        assertThat(rowsIn("p202311")).isEqualTo(1);
+        assertThat(rowsIn("p202312")).isEqualTo(1);
+        assertThat(rowsIn("p202401")).isEqualTo(1);
+        assertThat(rowsIn("p202402")).isEqualTo(1);
+        assertThat(rowsIn(PARTITION_NAME.format(current))).isEqualTo(1);
+        assertThat(rowsIn("p_past")).isZero();
+        assertThat(rowsIn("p_future")).isZero();
+
+        // And: the partitions run from the oldest row's month to the months ahead without gaps
+        assertThat(jdbcTemplate.queryForList("""
+                SELECT PARTITION_NAME FROM information_schema.PARTITIONS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'temperature_data' AND PARTITION_NAME LIKE 'p2%'
+                ORDER BY PARTITION_ORDINAL_POSITION""", String.class))
+                .startsWith("p202311", "p202312", "p202401", "p202402")
+                .endsWith(PARTITION_NAME.format(current.plusMonths(3)))
+                .doesNotHaveDuplicates();
+    }
+
+    private long rowsIn(String partition) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM temperature_data PARTITION (" + partition + ")", Long.class);
+    }
+}
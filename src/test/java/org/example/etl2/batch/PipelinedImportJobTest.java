@@ -0,0 +1,11 @@
+package org.example.etl2.batch;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the import scenarios with the files parsed ahead on a background thread, which
+ * reads the step scoped multi-file reader from outside the step's own thread.
+ */
+@TestPropertySource(properties = "batch.pipeline.enabled=true")
+class PipelinedImportJobTest extends TemperatureImportJobTest {
+}
@@ -0,0 +1,103 @@
+package org.example.etl2.batch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.job.JobExecution;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Imports files with duplicates with the rollups enabled and checks the rollup tables
+ * against aggregates of {@code temperature_data}.
+ */
+@TestPropertySource(properties = "batch.rollup.enabled=true")
+class RollupImportJobTest extends BaseIntegrationTest {
+
+    private static final String HOURLY_SQL = """
+            SELECT station_id, DATE_FORMAT(period_start, '%Y-%m-%d %H:%i:%s'), min_temp, max_temp, sum_temp, reading_count
+            FROM temperature_hourly ORDER BY 1, 2""";
+    private static final String HOURLY_FROM_DATA_SQL = """
+            SELECT station_id, DATE_FORMAT(datetime, '%Y-%m-%d %H:00:00') AS period, MIN(temp), MAX(temp), SUM(temp), COUNT(*)
+            FROM temperature_data GROUP BY station_id, period ORDER BY 1, 2""";
+    private static final String DAILY_SQL = """
+            SELECT station_id, period_start, min_temp, max_temp, sum_temp, reading_count
+            FROM temperature_daily ORDER BY 1, 2""";
+    private static final String DAILY_FROM_DATA_SQL = """
+            SELECT station_id, DATE(datetime) AS period, MIN(temp), MAX(temp), SUM(temp), COUNT(*)
+            FROM temperature_data GROUP BY station_id, period ORDER BY 1, 2""";
+
+    @Value("${batch.input.directory}")
+    private String inputDirectory;
+
+    private Path inputPath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        inputPath = Path.of(inputDirectory);
+        Files.createDirectories(inputPath);
+        try (var files = Files.list(inputPath)) {
+            for (Path file : files.filter(p -> p.toString().endsWith(".csv")).toList()) {
+                Files.delete(file);
+            }
+        }
+        jdbcTemplate.execute("DELETE FROM temperature_hourly");
+        jdbcTemplate.execute("DELETE FROM temperature_daily");
+        clearDatabase();
+    }
+
+    @Test
+    @DisplayName("Should keep the rollups equal to the aggregates of the stored rows across a re-import")
+    void testRollupsMatchData() throws Exception {
+        // Given: files with duplicates within and across them
+        copy("with_duplicates.csv");
+        copy("mixed_data.csv");
+
+        // When: importing them
+        JobExecution firstRun = jobLauncherTestUtils.launchJob();
+
+        // Then: the rollups match the stored rows
+        assertThat(firstRun.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        assertRollupsMatchData();
+        List<String> hourly = rows(HOURLY_SQL);
+
+        // When: importing the same files again, all of their rows being duplicates
+        copy("with_duplicates.csv");
+        copy("mixed_data.csv");
+        JobExecution secondRun = jobLauncherTestUtils.launchJob();
+
+        // Then: nothing is added to the rollups
+        assertThat(secondRun.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        assertRollupsMatchData();
+        assertThat(rows(HOURLY_SQL)).isEqualTo(hourly);
+    }
+
+    private void assertRollupsMatchData() {
+        List<String> hourly = rows(HOURLY_SQL);
+        assertThat(hourly).isNotEmpty().isEqualTo(rows(HOURLY_FROM_DATA_SQL));
+        assertThat(rows(DAILY_SQL)).isNotEmpty().isEqualTo(rows(DAILY_FROM_DATA_SQL));
+    }
+
+    /**
+     * @return the rows as {@code station|period|min|max|sum|count}
+     */
+    private List<String> rows(String sql) {
+        return jdbcTemplate.query(sql, (rs, rowNum) -> String.join("|", rs.getString(1), rs.getString(2),
+                rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6)));
+    }
+
+    private void copy(String name) throws IOException {
+        Files.copy(new ClassPathResource("data/" + name).getInputStream(), inputPath.resolve(name),
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,142 @@
+package org.example.etl2.batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/**
+ * Writes an input file of {@code stations} stations with {@code readingsPerStation}
+ * readings each, one every 10 minutes, with the rows of all stations interleaved by time
+ * like the production feeds. A share of the rows is replaced by malformed lines or by
+ * temperatures outside the default validation range, and a share of the valid rows is
+ * written a second time, a few hundred rows later.
+ * <p>
+ * The same profile always produces the same file. The returned {@link Counts} tell what
+ * an import of the file has to end up with.
+ * <p>
+ * Can also be run on its own to generate data for manual runs:
+ * {@code java -cp target/test-classes org.example.etl2.batch.SyntheticDataGenerator
+ * input/load.csv 1000 10000 0.01 0.001 0.001}
+ */
+public class SyntheticDataGenerator {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final DateTimeFormatter DATETIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final int DUPLICATE_WINDOW = 512;
+    private static final String[] MALFORMED = {
+            "%1$s,not-a-date,%3$s",
+            "%1$s,%2$s",
+            "%1$s,%2$s,%3$s,extra",
+            "%1$s,2024-13-45T25:61:00,%3$s",
+    };
+
+    /**
+     * @param duplicateRatio  share of valid rows that are written again
+     * @param malformedRatio  share of rows replaced by a line that cannot be parsed
+     * @param outOfRangeRatio share of rows whose temperature is outside -90 to 60 degrees
+     */
+    public record Profile(int stations, int readingsPerStation, double duplicateRatio, double malformedRatio,
+                          double outOfRangeRatio, long seed) {
+
+        public Profile {
+            if (stations < 1 || readingsPerStation < 1) {
+                throw new IllegalArgumentException("stations and readings per station must be positive");
+            }
+            if (malformedRatio + outOfRangeRatio > 1) {
+                throw new IllegalArgumentException("malformed and out of range ratios exceed 1");
+            }
+        }
+
+        public long rows() {
+            return (long) stations * readingsPerStation;
+        }
+    }
+
+    /**
+     * @param lines      data lines written, without the header
+     * @param valid      distinct valid rows, which end up in {@code temperature_data}
+     * @param duplicates valid rows written a second time
+     * @param malformed  lines skipped when they are read
+     * @param outOfRange rows skipped by the processor
+     */
+    public record Counts(long lines, long valid, long duplicates, long malformed, long outOfRange) {
+    }
+
+    private SyntheticDataGenerator() {
+    }
+
+    public static Counts write(Profile profile, Path file) throws IOException {
+        var random = new Random(profile.seed());
+        String[] recent = new String[DUPLICATE_WINDOW];
+        long lines = 0;
+        long valid = 0;
+        long duplicates = 0;
+        long malformed = 0;
+        long outOfRange = 0;
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("name,datetime,temp\n");
+            for (int reading = 0; reading < profile.readingsPerStation(); reading++) {
+                String datetime = DATETIME_FORMAT.format(START.plusMinutes(10L * reading));
+                for (int station = 0; station < profile.stations(); station++) {
+                    String name = "Station-" + station;
+                    double kind = random.nextDouble();
+                    String line;
+                    if (kind < profile.malformedRatio()) {
+                        String pattern = MALFORMED[random.nextInt(MALFORMED.length)];
+                        line = String.format(pattern, name, datetime, temperature(random));
+                        malformed++;
+                    } else if (kind < profile.malformedRatio() + profile.outOfRangeRatio()) {
+                        String temp = (random.nextBoolean() ? "" : "-") + (100 + random.nextInt(800)) + "." + random.nextInt(10);
+                        line = name + "," + datetime + "," + temp;
+                        outOfRange++;
+                    } else {
+                        line = name + "," + datetime + "," + temperature(random);
+                        valid++;
+                        if (random.nextDouble() < profile.duplicateRatio()) {
+                            int slot = random.nextInt(DUPLICATE_WINDOW);
+                            if (recent[slot] != null) {
+                                writer.write(recent[slot]);
+                                writer.write('\n');
+                                lines++;
+                                duplicates++;
+                            }
+                            recent[slot] = line;
+                        }
+                    }
+                    writer.write(line);
+                    writer.write('\n');
+                    lines++;
+                }
+            }
+        }
+        return new Counts(lines, valid, duplicates, malformed, outOfRange);
+    }
+
+    private static String temperature(Random random) {
+        int tenths = random.nextInt(-300, 451);
+        return (tenths < 0 ? "-" : "") + Math.abs(tenths) / 10 + "." + Math.abs(tenths) % 10;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: SyntheticDataGenerator <file> <stations> <readings per station> "
+                    + "[duplicate ratio] [malformed ratio] [out of range ratio] [seed]");
+            System.exit(1);
+        }
+        var profile = new Profile(
+                Integer.parseInt(args[1]),
+                Integer.parseInt(args[2]),
+                args.length > 3 ? Double.parseDouble(args[3]) : 0,
+                args.length > 4 ? Double.parseDouble(args[4]) : 0,
+                args.length > 5 ? Double.parseDouble(args[5]) : 0,
+                args.length > 6 ? Long.parseLong(args[6]) : 1);
+        Counts counts = write(profile, Path.of(args[0]));
+        System.out.println(counts);
+    }
+}
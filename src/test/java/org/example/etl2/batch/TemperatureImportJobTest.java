@@ -30,7 +30,7 @@ class TemperatureImportJobTest extends BaseIntegrationTest {
         }
         // Clean input directory
         Files.list(inputPath)
-                .filter(p -> p.toString().endsWith(".csv"))
+                .filter(p -> p.toString().endsWith(".csv") || p.toString().endsWith(".csv.gz"))
                 .forEach(p -> {
                     try {
                         Files.delete(p);
@@ -61,6 +61,25 @@ class TemperatureImportJobTest extends BaseIntegrationTest {
         assertThat(recordCount).isEqualTo(15);
     }
 
+    @Test
+    @DisplayName("Should import all valid records from gzip compressed CSV file")
+    void testCompressedCsvImport() throws Exception {
+        // Given: Copy valid_data.csv.gz (valid_data.csv compressed with gzip) to input directory
+        ClassPathResource resource = new ClassPathResource("data/valid_data.csv.gz");
+        Path targetFile = inputPath.resolve("valid_data.csv.gz");
+        Files.copy(resource.getInputStream(), targetFile, StandardCopyOption.REPLACE_EXISTING);
+
+        // When: Launch the job
+        JobExecution jobExecution = jobLauncherTestUtils.launchJob();
+
+        // Then: Job should complete successfully
+        assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+        // And: Database should contain the 15 records of the decompressed file
+        long recordCount = countRecords();
+        assertThat(recordCount).isEqualTo(15);
+    }
+
     @Test
     @DisplayName("Should handle within-file duplicates - insert first, skip subsequent")
     void testWithinFileDuplicates() throws Exception {
@@ -86,9 +105,10 @@ class TemperatureImportJobTest extends BaseIntegrationTest {
     @DisplayName("Should skip records that already exist in database")
     void testDatabaseDuplicates() throws Exception {
         // Given: Pre-insert a record to database
+        jdbcTemplate.update("INSERT IGNORE INTO station (name) VALUES (?)", "Sensor1");
         jdbcTemplate.update(
-                "INSERT INTO temperature_data (name, datetime, temp) VALUES (?, ?, ?)",
-                "Sensor1", java.sql.Timestamp.valueOf("2024-01-15 10:30:00"), new java.math.BigDecimal("20.0"));
+                "INSERT INTO temperature_data (station_id, datetime, temp) SELECT id, ?, ? FROM station WHERE name = ?",
+                java.sql.Timestamp.valueOf("2024-01-15 10:30:00"), new java.math.BigDecimal("20.0"), "Sensor1");
 
         // And: Copy valid_data.csv which contains Sensor1 at 2024-01-15T10:30:00
         ClassPathResource resource = new ClassPathResource("data/valid_data.csv");
@@ -209,7 +229,7 @@ class TemperatureImportJobTest extends BaseIntegrationTest {
         assertThat(recordCount).isEqualTo(1);
 
         // And: Step should report skipped records
-        var stepExecution = jobExecution.getStepExecutions().iterator().next();
+        var stepExecution = importStepExecution(jobExecution);
         assertThat(stepExecution.getSkipCount()).isGreaterThan(0);
     }
 
@@ -231,7 +251,7 @@ class TemperatureImportJobTest extends BaseIntegrationTest {
         assertThat(countRecords()).isEqualTo(0);
 
         // And: Step execution should show 0 reads
-        var stepExecution = jobExecution.getStepExecutions().iterator().next();
+        var stepExecution = importStepExecution(jobExecution);
         assertThat(stepExecution.getReadCount()).isEqualTo(0);
         assertThat(stepExecution.getWriteCount()).isEqualTo(0);
     }
@@ -273,7 +293,7 @@ class TemperatureImportJobTest extends BaseIntegrationTest {
         assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
 
         // And: Summary formula should hold
-        var stepExecution = jobExecution.getStepExecutions().iterator().next();
+        var stepExecution = importStepExecution(jobExecution);
         long readCount = stepExecution.getReadCount();
         long writeCount = stepExecution.getWriteCount();
         long skipCount = stepExecution.getSkipCount();
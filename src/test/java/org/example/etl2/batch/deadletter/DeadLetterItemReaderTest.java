@@ -0,0 +1,152 @@
+package org.example.etl2.batch.deadletter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.batch.infrastructure.item.file.FlatFileParseException;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeadLetterItemReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should replay stored rows in order across segments and mark them replayed")
+    void testReplaysSegmentsInOrder() throws Exception {
+        // Given: rows stored in segments of a few bytes, so every row starts a new segment
+        var store = new DeadLetterStore(directory, DataSize.ofBytes(16));
+        for (int i = 1; i <= 5; i++) {
+            store.append(new DeadLetterRecord("file:/input/data.csv", i, "java.lang.IllegalArgumentException", "row" + i));
+        }
+
+        // When: replaying them
+        var reader = new DeadLetterItemReader<String>(store, (line, lineNumber) -> line);
+        reader.open(new ExecutionContext());
+        List<String> rows = new ArrayList<>();
+        for (String row = reader.read(); row != null; row = reader.read()) {
+            rows.add(row);
+        }
+        reader.close();
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        stepExecution.setStatus(BatchStatus.COMPLETED);
+        reader.afterStep(stepExecution);
+
+        // Then: the rows come back in the order they were stored and no segment is left to replay
+        assertThat(rows).containsExactly("row1", "row2", "row3", "row4", "row5");
+        assertThat(segments(".dlq")).isEmpty();
+        assertThat(segments(".replayed")).hasSize(5);
+    }
+
+    @Test
+    @DisplayName("Should report rows that still fail with their original file and line")
+    void testFailingRowKeepsOrigin() {
+        // Given: a stored row the line mapper rejects
+        var store = new DeadLetterStore(directory, DataSize.ofMegabytes(1));
+        store.append(new DeadLetterRecord("file:/input/data.csv", 42, "java.lang.NumberFormatException", "A,x,y"));
+        var reader = new DeadLetterItemReader<String>(store, (line, lineNumber) -> {
+            throw new IllegalArgumentException("bad row");
+        });
+        reader.open(new ExecutionContext());
+
+        // When / Then: the parse error carries the raw line, line number and file
+        assertThatThrownBy(reader::read)
+                .isInstanceOfSatisfying(FlatFileParseException.class, e -> {
+                    assertThat(e.getInput()).isEqualTo("A,x,y");
+                    assertThat(e.getLineNumber()).isEqualTo(42);
+                    assertThat(e.getMessage()).contains("in resource=[file:/input/data.csv]");
+                });
+        reader.close();
+    }
+
+    @Test
+    @DisplayName("Should replay the segments of the failed run when restarted, not those written since")
+    void testRestartReadsSameSegments() throws Exception {
+        // Given: a replay that read one of two stored rows before it failed
+        var store = new DeadLetterStore(directory, DataSize.ofMegabytes(1));
+        store.append(new DeadLetterRecord("file:/input/data.csv", 1, "java.lang.IllegalArgumentException", "row1"));
+        store.append(new DeadLetterRecord("file:/input/data.csv", 2, "java.lang.IllegalArgumentException", "row2"));
+        var failed = new DeadLetterItemReader<String>(store, (line, lineNumber) -> line);
+        var executionContext = new ExecutionContext();
+        failed.open(executionContext);
+        assertThat(failed.read()).isEqualTo("row1");
+        failed.update(executionContext);
+        failed.close();
+
+        // And: a row skipped by the failed replay, stored in a new segment
+        store.append(new DeadLetterRecord("file:/input/data.csv", 1, "java.lang.IllegalArgumentException", "row1"));
+
+        // When: restarting the replay
+        var restarted = new DeadLetterItemReader<String>(store, (line, lineNumber) -> line);
+        restarted.open(executionContext);
+        List<String> rows = new ArrayList<>();
+        for (String row = restarted.read(); row != null; row = restarted.read()) {
+            rows.add(row);
+        }
+        restarted.close();
+
+        // Then: only the rest of the original segment is read
+        assertThat(rows).containsExactly("row2");
+        assertThat(restarted.getCurrentSourceFile()).isEqualTo("file:/input/data.csv");
+    }
+
+    @Test
+    @DisplayName("Should only store the rows skipped by the attempt of a chunk that committed")
+    void testStoresOnCommit() throws Exception {
+        // Given: a chunk skipping a row, rolled back and scanned again
+        var store = new DeadLetterStore(directory, DataSize.ofMegabytes(1));
+        var record = new DeadLetterRecord("file:/input/data.csv", 7, "java.lang.IllegalArgumentException", "row7");
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            store.append(record);
+        } finally {
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        // When: the scan skips the row again and commits
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            store.append(record);
+            assertThat(segments(".dlq")).isEmpty();
+        } finally {
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        // Then: the row is stored once
+        var reader = new DeadLetterItemReader<String>(store, (line, lineNumber) -> line);
+        reader.open(new ExecutionContext());
+        List<String> rows = new ArrayList<>();
+        for (String row = reader.read(); row != null; row = reader.read()) {
+            rows.add(row);
+        }
+        reader.close();
+        assertThat(rows).containsExactly("row7");
+    }
+
+    private static void complete(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(status));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private List<Path> segments(String extension) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(extension)).toList();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.etl2.batch.listener;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdaptiveChunkCompletionPolicyTest {
+
+    private final JobRepository jobRepository = mock(JobRepository.class);
+
+    @Test
+    @DisplayName("Should grow chunks that finish well within the target time up to the maximum")
+    void testGrowsFastChunks() {
+        when(jobRepository.getJobInstances(anyString(), anyInt(), anyInt())).thenReturn(List.of());
+        var policy = new AdaptiveChunkCompletionPolicy(jobRepository, 1000, 100, 5000, Duration.ofHours(1));
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+
+        policy.beforeStep(stepExecution);
+        runChunk(policy, stepExecution);
+        assertThat(policy.getChunkSize()).isEqualTo(2000);
+        runChunk(policy, stepExecution);
+        runChunk(policy, stepExecution);
+
+        assertThat(policy.getChunkSize()).isEqualTo(5000);
+        assertThat(stepExecution.getExecutionContext().getInt(AdaptiveChunkCompletionPolicy.CHUNK_SIZE_KEY))
+                .isEqualTo(5000);
+    }
+
+    @Test
+    @DisplayName("Should shrink chunks that exceed the target time down to the minimum")
+    void testShrinksSlowChunks() {
+        when(jobRepository.getJobInstances(anyString(), anyInt(), anyInt())).thenReturn(List.of());
+        var policy = new AdaptiveChunkCompletionPolicy(jobRepository, 1000, 100, 5000, Duration.ofNanos(1));
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+
+        policy.beforeStep(stepExecution);
+        runChunk(policy, stepExecution);
+        assertThat(policy.getChunkSize()).isEqualTo(500);
+        for (int i = 0; i < 5; i++) {
+            runChunk(policy, stepExecution);
+        }
+
+        assertThat(policy.getChunkSize()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Should start from the size saved in the step execution context")
+    void testResumesSavedSize() {
+        var policy = new AdaptiveChunkCompletionPolicy(jobRepository, 1000, 100, 5000, Duration.ofSeconds(1));
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        stepExecution.getExecutionContext().putInt(AdaptiveChunkCompletionPolicy.CHUNK_SIZE_KEY, 3000);
+
+        policy.beforeStep(stepExecution);
+
+        assertThat(policy.getChunkSize()).isEqualTo(3000);
+    }
+
+    private static void runChunk(AdaptiveChunkCompletionPolicy policy, StepExecution stepExecution) {
+        var context = new ChunkContext(new StepContext(stepExecution));
+        policy.beforeChunk(context);
+        stepExecution.setReadCount(stepExecution.getReadCount() + policy.getChunkSize());
+        stepExecution.setWriteCount(stepExecution.getWriteCount() + policy.getChunkSize());
+        policy.afterChunk(context);
+    }
+}
@@ -0,0 +1,203 @@
+package org.example.etl2.batch.listener;
+
+import org.example.etl2.model.TemperatureReading;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DuplicateLogWriterTest {
+
+    private static final AtomicLong JOB_IDS = new AtomicLong(System.nanoTime());
+
+    private DuplicateLogWriter writer;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        writer.close();
+        Files.deleteIfExists(writer.getLogFilePath());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "2024-01-15T10:30:00",
+            "2024-01-15T00:00:05",
+            "0001-02-03T04:05:06",
+            "9999-12-31T23:59:59",
+            "2024-01-15T10:30:00.5",
+            "2024-01-15T10:30:00.120",
+            "2024-01-15T10:30:00.000001",
+            "2024-01-15T10:30:00.123456789"
+    })
+    @DisplayName("Should write reportedAt|name|datetime|temp lines with datetimes as ISO_LOCAL_DATE_TIME")
+    void testLineFormat(String datetime) throws Exception {
+        // Given: an open log
+        writer = open(8, Duration.ofHours(1));
+        LocalDateTime before = LocalDateTime.now().withNano(0);
+
+        // When: logging a duplicate and closing the log
+        writer.writeDuplicate(new TemperatureReading("Station|1", LocalDateTime.parse(datetime), new BigDecimal("-3.50")));
+        writer.close();
+
+        // Then: the line holds the report time, the name, the datetime as formatted by the JDK, and the temperature
+        List<String> lines = Files.readAllLines(writer.getLogFilePath());
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).startsWith("# Duplicate records detected");
+        String line = lines.get(1);
+        assertThat(line).endsWith("|Station|1|"
+                + DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(LocalDateTime.parse(datetime)) + "|-3.50");
+        LocalDateTime reportedAt = LocalDateTime.parse(line.substring(0, line.indexOf('|')));
+        assertThat(reportedAt).isAfterOrEqualTo(before).isBeforeOrEqualTo(LocalDateTime.now());
+    }
+
+    @Test
+    @DisplayName("Should write every duplicate queued by concurrent producers before closing")
+    void testCloseDrainsQueue() throws Exception {
+        // Given: four producers filling a small queue much faster than it is flushed
+        writer = open(16, Duration.ofHours(1));
+        int perProducer = 5_000;
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            String name = "P" + p;
+            producers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    writer.writeDuplicate(reading(name, i));
+                }
+            }));
+        }
+
+        // When: closing the log once they are done
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        writer.close();
+
+        // Then: every duplicate is in the file and none was dropped
+        try (var lines = Files.lines(writer.getLogFilePath())) {
+            assertThat(lines.filter(line -> !line.startsWith("#")).count()).isEqualTo(4L * perProducer);
+        }
+        assertThat(writer.getDroppedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should write or count as dropped every duplicate of producers racing with close")
+    void testCloseRacingProducers() throws Exception {
+        // Given: four producers logging until they find the log closed
+        writer = open(16, Duration.ofHours(1));
+        AtomicLong reported = new AtomicLong();
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            String name = "P" + p;
+            producers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; writer.getDroppedCount() == 0; i++) {
+                    writer.writeDuplicate(reading(name, i));
+                    reported.incrementAndGet();
+                }
+            }));
+        }
+
+        // When: closing the log while they are running
+        Thread.sleep(100);
+        writer.close();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        // Then: every duplicate is either in the file or counted as dropped
+        try (var lines = Files.lines(writer.getLogFilePath())) {
+            assertThat(lines.filter(line -> !line.startsWith("#")).count() + writer.getDroppedCount())
+                    .isEqualTo(reported.get());
+        }
+    }
+
+    @Test
+    @DisplayName("Should write buffered duplicates once the flush interval passed, without waiting for a full buffer")
+    void testFlushInterval() throws Exception {
+        // Given: a log flushed every 50 ms with a buffer far larger than one line
+        writer = open(8, Duration.ofMillis(50));
+
+        // When: logging one duplicate
+        writer.writeDuplicate(reading("A", 0));
+
+        // Then: it reaches the file while the log is still open
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (Files.readAllLines(writer.getLogFilePath()).size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(Files.readAllLines(writer.getLogFilePath())).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should keep buffered duplicates in memory until the flush interval passed")
+    void testNoFlushBeforeInterval() throws Exception {
+        // Given: a log flushed every hour
+        writer = open(8, Duration.ofHours(1));
+
+        // When: logging one duplicate
+        writer.writeDuplicate(reading("A", 0));
+        Thread.sleep(200);
+
+        // Then: only the header is in the file until the log is closed
+        assertThat(Files.readAllLines(writer.getLogFilePath())).hasSize(1);
+        writer.close();
+        assertThat(Files.readAllLines(writer.getLogFilePath())).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should count the duplicates dropped while the queue stays full because its background thread died")
+    void testCountsDroppedDuplicates() {
+        // Given: a queue of four entries whose background thread dies on a reading it cannot format
+        writer = open(4, Duration.ofHours(1));
+        writer.writeDuplicate(new TemperatureReading("Broken", null, BigDecimal.ONE));
+
+        // When: logging ten more duplicates
+        for (int i = 0; i < 10; i++) {
+            writer.writeDuplicate(reading("A", i));
+        }
+
+        // Then: four are queued and the six that found the queue full are dropped
+        assertThat(writer.getDroppedCount()).isEqualTo(6);
+
+        // And: closing counts the queued ones as dropped too
+        writer.close();
+        assertThat(writer.getDroppedCount()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should count duplicates reported while the log is not open as dropped")
+    void testCountsDuplicatesAfterClose() {
+        // Given: a closed log
+        writer = open(8, Duration.ofHours(1));
+        writer.close();
+
+        // When: logging a duplicate
+        writer.writeDuplicate(reading("A", 0));
+
+        // Then: it is counted as dropped
+        assertThat(writer.getDroppedCount()).isEqualTo(1);
+    }
+
+    private static DuplicateLogWriter open(int queueCapacity, Duration flushInterval) {
+        var writer = new DuplicateLogWriter(queueCapacity, DataSize.ofKilobytes(64), flushInterval);
+        writer.initialize(JOB_IDS.incrementAndGet());
+        return writer;
+    }
+
+    private static TemperatureReading reading(String name, int second) {
+        return new TemperatureReading(name, LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(second), new BigDecimal("1.0"));
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.etl2.batch.listener;
+
+import org.example.etl2.model.TemperatureReading;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DuplicateRingBufferTest {
+
+    @Test
+    @DisplayName("Should refuse entries when full and accept them again once drained")
+    void testCapacity() {
+        // Given: a buffer of four entries
+        var buffer = new DuplicateRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(reading("A", i), i)).isTrue();
+        }
+
+        // When: offering a fifth entry, then draining
+        boolean accepted = buffer.offer(reading("A", 4), 4);
+        List<Long> drained = new ArrayList<>();
+        buffer.drain((reading, reportedAt) -> drained.add(reportedAt));
+
+        // Then: the fifth entry is refused and the first four come out in order
+        assertThat(accepted).isFalse();
+        assertThat(drained).containsExactly(0L, 1L, 2L, 3L);
+        assertThat(buffer.isEmpty()).isTrue();
+        assertThat(buffer.offer(reading("A", 4), 4)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should pass on every entry of concurrent producers, each in its order")
+    void testConcurrentProducers() throws Exception {
+        // Given: four producers offering 10000 entries each into a small buffer
+        var buffer = new DuplicateRingBuffer(64);
+        int producers = 4;
+        int perProducer = 10_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String name = "P" + p;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(reading(name, i), i)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+
+        // When: draining on this thread until every entry arrived
+        Map<String, Long> lastByProducer = new HashMap<>();
+        List<String> outOfOrder = new ArrayList<>();
+        int received = 0;
+        while (received < producers * perProducer) {
+            received += buffer.drain((reading, reportedAt) -> {
+                Long last = lastByProducer.put(reading.name(), reportedAt);
+                if (last != null && last + 1 != reportedAt) {
+                    outOfOrder.add(reading.name() + ":" + reportedAt);
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then: nothing is lost, duplicated or reordered within a producer
+        assertThat(outOfOrder).isEmpty();
+        assertThat(lastByProducer).hasSize(producers).allSatisfy((name, last) -> assertThat(last).isEqualTo(perProducer - 1));
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+
+    private static TemperatureReading reading(String name, int second) {
+        return new TemperatureReading(name, LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(second), new BigDecimal("1.0"));
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.etl2.batch.listener;
+
+import org.example.etl2.batch.deadletter.DeadLetterRecord;
+import org.example.etl2.batch.deadletter.DeadLetterStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.infrastructure.item.file.FlatFileParseException;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class SkipItemListenerTest {
+
+    private final DeadLetterStore deadLetterStore = mock(DeadLetterStore.class);
+
+    @Test
+    @DisplayName("Should store a row skipped in read with the file being read when the read failed")
+    void testStoresFileOfFailedRead() {
+        // Given: a read failing in the first file, reported as skipped once the reader moved on
+        var file = new AtomicReference<>("file [first.csv]");
+        var listener = new SkipItemListener(deadLetterStore, true, file::get);
+        var exception = new FlatFileParseException("Parsing error at line: 3, input=[A,x,1.0]",
+                new IllegalArgumentException("bad datetime"), "A,x,1.0", 3);
+
+        // When
+        listener.onReadError(exception);
+        file.set("file [second.csv]");
+        listener.onSkipInRead(exception);
+
+        // Then: the row is stored with the file it came from
+        verify(deadLetterStore).append(new DeadLetterRecord("file [first.csv]", 3,
+                IllegalArgumentException.class.getName(), "A,x,1.0"));
+    }
+
+    @Test
+    @DisplayName("Should forget the files of failed reads that were not skipped once the step ended")
+    void testForgetsFailedReadsAfterStep() {
+        // Given: a read failing in a step that ended without skipping it
+        var file = new AtomicReference<>("file [first.csv]");
+        var listener = new SkipItemListener(deadLetterStore, true, file::get);
+        var exception = new FlatFileParseException("Parsing error at line: 3, input=[A,x,1.0]",
+                new IllegalArgumentException("bad datetime"), "A,x,1.0", 3);
+        listener.onReadError(exception);
+
+        // When: the step ended and the same exception is reported as skipped later on
+        listener.afterStep(MetaDataInstanceFactory.createStepExecution());
+        listener.onSkipInRead(exception);
+
+        // Then: its file is not known anymore
+        verify(deadLetterStore).append(new DeadLetterRecord("", 3, IllegalArgumentException.class.getName(), "A,x,1.0"));
+    }
+}
@@ -0,0 +1,148 @@
+package org.example.etl2.batch.listener;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.etl2.model.TemperatureReading;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StageMetricsListenerTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final ImportMetrics metrics = new ImportMetrics(registry, 4, Duration.ZERO);
+
+    @Test
+    @DisplayName("Should count rows per stage and sample stage times for the file being read")
+    void testCountsAndSamplesPerFile() {
+        // Given: a step reading 10 rows of a file, one of which the processor filters
+        var file = new AtomicReference<Resource>(new FileSystemResource("first.csv"));
+        var listener = new StageMetricsListener(metrics, file::get);
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+
+        // When: running them through a chunk
+        listener.beforeStep(stepExecution);
+        listener.beforeChunk(null);
+        for (int i = 0; i < 10; i++) {
+            TemperatureReading reading = reading(i);
+            listener.beforeRead();
+            listener.afterRead(reading);
+            listener.beforeProcess(reading);
+            listener.afterProcess(reading, i == 0 ? null : reading);
+        }
+        listener.beforeWrite(new Chunk<>());
+        metrics.recordDuplicates(2);
+        listener.afterWrite(Chunk.of(reading(1), reading(2), reading(3)));
+        listener.afterChunk(null);
+
+        // Then: all rows are counted, but only every 4th read and process is timed
+        assertThat(rows("first.csv", "read")).isEqualTo(10);
+        assertThat(rows("first.csv", "processed")).isEqualTo(9);
+        assertThat(rows("first.csv", "filtered")).isEqualTo(1);
+        assertThat(rows("first.csv", "written")).isEqualTo(3);
+        assertThat(registry.get("etl.import.duplicates").tag("file", "first.csv").functionCounter().count())
+                .isEqualTo(2);
+        assertThat(timer("first.csv", "read")).isEqualTo(3);
+        assertThat(timer("first.csv", "process")).isEqualTo(3);
+        assertThat(timer("first.csv", "write")).isEqualTo(1);
+        assertThat(timer("first.csv", "commit")).isEqualTo(1);
+
+    }
+
+    @Test
+    @DisplayName("Should keep the meters of a file after its step ended until the next job starts")
+    void testKeepsMetersUntilNextJob() {
+        // Given: a step that read 3 rows of a file
+        var listener = new StageMetricsListener(metrics, () -> new FileSystemResource("first.csv"));
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        listener.beforeStep(stepExecution);
+        for (int i = 0; i < 3; i++) {
+            listener.beforeRead();
+            listener.afterRead(reading(i));
+        }
+
+        // When: the step and its job ended
+        listener.afterStep(stepExecution);
+
+        // Then: the final counts can still be scraped
+        assertThat(rows("first.csv", "read")).isEqualTo(3);
+
+        // When: the next job starts
+        metrics.beforeJob(MetaDataInstanceFactory.createJobExecution());
+
+        // Then: the meters are removed
+        assertThat(registry.find("etl.import.rows").tag("file", "first.csv").meters()).isEmpty();
+        assertThat(registry.find("etl.import.stage.time").tag("file", "first.csv").meters()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should keep the meters of a file while a step still reads it when the next job starts")
+    void testKeepsMetersOfFileInUse() {
+        // Given: two partitions of the same file
+        var first = new StageMetricsListener(metrics, () -> new FileSystemResource("shared.csv"));
+        var second = new StageMetricsListener(metrics, () -> new FileSystemResource("shared.csv"));
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        first.beforeStep(stepExecution);
+        second.beforeStep(stepExecution);
+
+        // When: the first one ends and another job starts
+        first.afterStep(stepExecution);
+        metrics.beforeJob(MetaDataInstanceFactory.createJobExecution());
+        second.beforeRead();
+        second.afterRead(reading(0));
+
+        // Then: the meters stay registered for the second one
+        assertThat(rows("shared.csv", "read")).isEqualTo(1);
+
+        // And: are removed at the first job start after it ended too
+        second.afterStep(stepExecution);
+        metrics.beforeJob(MetaDataInstanceFactory.createJobExecution());
+        assertThat(registry.find("etl.import.rows").tag("file", "shared.csv").meters()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should move to the next file of the reader at the next sampled read")
+    void testSwitchesFile() {
+        // Given: a reader moving to a second file after 4 rows
+        var file = new AtomicReference<Resource>(new FileSystemResource("first.csv"));
+        var listener = new StageMetricsListener(metrics, file::get);
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        listener.beforeStep(stepExecution);
+
+        // When: reading 4 rows of each file
+        for (int i = 0; i < 8; i++) {
+            if (i == 4) {
+                file.set(new FileSystemResource("second.csv"));
+            }
+            listener.beforeRead();
+            listener.afterRead(reading(i));
+        }
+
+        // Then: the rows are counted for their file
+        assertThat(rows("first.csv", "read")).isEqualTo(4);
+        assertThat(rows("second.csv", "read")).isEqualTo(4);
+    }
+
+    private double rows(String file, String stage) {
+        return registry.get("etl.import.rows").tag("file", file).tag("stage", stage).functionCounter().count();
+    }
+
+    private long timer(String file, String stage) {
+        return registry.get("etl.import.stage.time").tag("file", file).tag("stage", stage).timer().count();
+    }
+
+    private static TemperatureReading reading(int i) {
+        return new TemperatureReading("Station", LocalDateTime.of(2024, 1, 1, 0, 0).plusHours(i), new BigDecimal("20.5"));
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.etl2.batch.processor;
+
+import org.example.etl2.batch.BaseIntegrationTest;
+import org.example.etl2.batch.listener.JobCompletionListener;
+import org.example.etl2.batch.writer.DuplicateReporter;
+import org.example.etl2.model.TemperatureReading;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.job.JobExecution;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = "batch.dedup.prefilter.enabled=true")
+class KnownDuplicateFilterTest extends BaseIntegrationTest {
+
+    @Value("${batch.input.directory}")
+    private String inputDirectory;
+
+    @Autowired
+    private KnownDuplicateFilter filter;
+
+    @Autowired
+    private DuplicateReporter duplicateReporter;
+
+    @Autowired
+    private JobCompletionListener jobCompletionListener;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path inputPath = Path.of(inputDirectory);
+        Files.createDirectories(inputPath);
+        try (var files = Files.list(inputPath)) {
+            for (Path file : files.filter(p -> p.toString().endsWith(".csv")).toList()) {
+                Files.delete(file);
+            }
+        }
+        clearDatabase();
+        filter.beforeJob(null);
+        jobCompletionListener.resetDuplicatesCount();
+    }
+
+    @Test
+    @DisplayName("Should drop readings already stored and pass new ones, across days")
+    void testDropsStoredReadings() {
+        // Given: rows stored for a station on two days
+        insert("Filter", LocalDateTime.of(2024, 1, 1, 23, 59, 59));
+        insert("Filter", LocalDateTime.of(2024, 1, 2, 0, 0, 0));
+
+        // When / Then: the stored readings are dropped and reported, the others pass
+        assertThat(filter.process(reading("Filter", LocalDateTime.of(2024, 1, 1, 23, 59, 59)))).isNull();
+        assertThat(filter.process(reading("Filter", LocalDateTime.of(2024, 1, 2, 0, 0, 0)))).isNull();
+        assertThat(filter.process(reading("Filter", LocalDateTime.of(2024, 1, 2, 0, 0, 1)))).isNotNull();
+        assertThat(filter.process(reading("Other", LocalDateTime.of(2024, 1, 2, 0, 0, 0)))).isNotNull();
+        assertThat(jobCompletionListener.getFilteredDuplicatesCount()).isEqualTo(2);
+        assertThat(jobCompletionListener.getDuplicatesCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should pass readings of days it has no memory left to load")
+    void testPassesWhenOverBudget() {
+        // Given: a stored row and a filter without memory budget
+        insert("Filter", LocalDateTime.of(2024, 1, 1, 12, 0));
+        var unbudgeted = new KnownDuplicateFilter(jdbcTemplate, duplicateReporter, DataSize.ofBytes(0));
+
+        // When / Then: the reading is left to the writer
+        assertThat(unbudgeted.process(reading("Filter", LocalDateTime.of(2024, 1, 1, 12, 0)))).isNotNull();
+        assertThat(jobCompletionListener.getFilteredDuplicatesCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should filter every row of a file imported a second time and count none as inserted")
+    void testReimport() throws Exception {
+        // Given: valid_data.csv imported once
+        var resource = new ClassPathResource("data/valid_data.csv");
+        Path targetFile = Path.of(inputDirectory, "valid_data.csv");
+        Files.copy(resource.getInputStream(), targetFile, StandardCopyOption.REPLACE_EXISTING);
+        assertThat(jobLauncherTestUtils.launchJob().getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+        // When: importing it again
+        Files.copy(resource.getInputStream(), targetFile, StandardCopyOption.REPLACE_EXISTING);
+        JobExecution secondRun = jobLauncherTestUtils.launchJob();
+
+        // Then: all 15 rows are dropped before the writer and none is written
+        assertThat(secondRun.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        StepExecution importStep = importStepExecution(secondRun);
+        assertThat(importStep.getFilterCount()).isEqualTo(15);
+        assertThat(importStep.getWriteCount()).isZero();
+        assertThat(jobCompletionListener.getFilteredDuplicatesCount()).isEqualTo(15);
+        assertThat(jobCompletionListener.getDuplicatesCount()).isZero();
+        assertThat(countRecords()).isEqualTo(15);
+    }
+
+    private void insert(String name, LocalDateTime datetime) {
+        jdbcTemplate.update("INSERT IGNORE INTO station (name) VALUES (?)", name);
+        jdbcTemplate.update(
+                "INSERT INTO temperature_data (station_id, datetime, temp) SELECT id, ?, ? FROM station WHERE name = ?",
+                Timestamp.valueOf(datetime), new BigDecimal("20.0"), name);
+    }
+
+    private static TemperatureReading reading(String name, LocalDateTime datetime) {
+        return new TemperatureReading(name, datetime, new BigDecimal("20.0"));
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.etl2.batch.processor;
+
+import org.example.etl2.model.TemperatureReading;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TemperatureItemProcessorTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 15, 10, 0);
+
+    @Test
+    @DisplayName("Should reject temperatures outside the global or station range")
+    void testTemperatureRange() throws Exception {
+        var processor = processor("Arctic=-90.0..10.0", "0");
+
+        assertThat(processor.process(reading("Sensor1", TIME, "59.9"))).isNotNull();
+        assertThatThrownBy(() -> processor.process(reading("Sensor1", TIME, "9999.9")))
+                .isInstanceOf(InvalidTemperatureException.class);
+        assertThatThrownBy(() -> processor.process(reading("Arctic", TIME, "10.1")))
+                .isInstanceOf(InvalidTemperatureException.class);
+        assertThat(processor.process(reading("Arctic", TIME, "-89.0"))).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should reject datetimes outside the window")
+    void testDateTimeWindow() {
+        var processor = processor("", "0");
+
+        assertThatThrownBy(() -> processor.process(reading("Sensor1", LocalDateTime.of(1899, 12, 31, 0, 0), "1.0")))
+                .isInstanceOf(InvalidDateTimeException.class);
+        assertThatThrownBy(() -> processor.process(reading("Sensor1", LocalDateTime.now().plusDays(2), "1.0")))
+                .isInstanceOf(InvalidDateTimeException.class);
+    }
+
+    @Test
+    @DisplayName("Should reject changes faster than the maximum rate against the previous reading")
+    void testRateOfChange() throws Exception {
+        var processor = processor("", "5.0");
+
+        assertThat(processor.process(reading("Sensor1", TIME, "20.0"))).isNotNull();
+        assertThat(processor.process(reading("Sensor1", TIME.plusHours(1), "24.5"))).isNotNull();
+        assertThatThrownBy(() -> processor.process(reading("Sensor1", TIME.plusHours(2), "35.0")))
+                .isInstanceOf(InvalidTemperatureException.class);
+        assertThat(processor.process(reading("Sensor2", TIME.plusHours(2), "35.0"))).isNotNull();
+
+        // Rejected readings do not become the previous reading
+        assertThat(processor.process(reading("Sensor1", TIME.plusHours(3), "30.0"))).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should compare with the latest reading by datetime, not the last one read")
+    void testRateOfChangeInDatetimeOrder() throws Exception {
+        var processor = processor("", "5.0");
+
+        assertThat(processor.process(reading("Sensor1", TIME.plusHours(2), "20.0"))).isNotNull();
+        // An older reading is checked, but does not become the previous reading
+        assertThat(processor.process(reading("Sensor1", TIME, "12.0"))).isNotNull();
+        assertThatThrownBy(() -> processor.process(reading("Sensor1", TIME.plusMinutes(150), "17.0")))
+                .isInstanceOf(InvalidTemperatureException.class);
+    }
+
+    @Test
+    @DisplayName("Should only keep the readings of committed chunks as previous readings")
+    void testRateOfChangeAfterRollback() throws Exception {
+        var processor = processor("", "5.0");
+
+        // Given: a chunk accepting a reading that is rolled back
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThat(processor.process(reading("Sensor1", TIME, "20.0"))).isNotNull();
+        } finally {
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        // When: the next chunk has a reading far from it
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThat(processor.process(reading("Sensor1", TIME.plusHours(1), "40.0"))).isNotNull();
+            // Then: readings of the same chunk are compared with the ones accepted before
+            assertThatThrownBy(() -> processor.process(reading("Sensor1", TIME.plusHours(2), "50.0")))
+                    .isInstanceOf(InvalidTemperatureException.class);
+        } finally {
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        // And: the committed reading is the previous one of the next chunk
+        assertThatThrownBy(() -> processor.process(reading("Sensor1", TIME.plusHours(2), "30.0")))
+                .isInstanceOf(InvalidTemperatureException.class);
+    }
+
+    private static void complete(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(status));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static TemperatureItemProcessor processor(String stationRanges, String maxChangePerHour) {
+        return new TemperatureItemProcessor(new BigDecimal("-90.0"), new BigDecimal("60.0"), stationRanges,
+                "1900-01-01T00:00:00", Duration.ofDays(1), new BigDecimal(maxChangePerHour));
+    }
+
+    private static TemperatureReading reading(String name, LocalDateTime datetime, String temp) {
+        return new TemperatureReading(name, datetime, new BigDecimal(temp));
+    }
+}
@@ -0,0 +1,289 @@
+package org.example.etl2.batch.reader;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.batch.infrastructure.item.file.FlatFileParseException;
+import org.springframework.batch.infrastructure.item.file.LineMapper;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ByteRangeItemReaderTest {
+
+    @TempDir
+    Path inputDir;
+
+    @Test
+    @DisplayName("Should read every line exactly once across aligned byte ranges")
+    void testRangesCoverFileExactlyOnce() throws Exception {
+        // Given: a file of 200 data rows split into ranges of about 500 bytes
+        List<String> expected = writeRows("large.csv", 200);
+        var partitioner = new InputFilePartitioner(
+                new PathMatchingResourcePatternResolver().getResources("file:" + inputDir + "/*.csv"), 500);
+
+        // When: reading every partition
+        Map<String, ExecutionContext> partitions = partitioner.partition(1);
+        List<String> lines = new ArrayList<>();
+        for (ExecutionContext partition : partitions.values()) {
+            ByteRangeItemReader<String> reader = newReader(partition);
+            reader.open(new ExecutionContext());
+            for (String line = reader.read(); line != null; line = reader.read()) {
+                lines.add(line);
+            }
+            reader.close();
+        }
+
+        // Then: all rows are read once and the header is skipped
+        assertThat(partitions).hasSizeGreaterThan(1);
+        assertThat(lines).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    @DisplayName("Should number the lines of every byte range by their line in the file")
+    void testRangesNumberLinesOfFile() throws Exception {
+        // Given: a file of 200 data rows split into ranges of about 500 bytes
+        List<String> expected = writeRows("numbered.csv", 200);
+        var partitioner = new InputFilePartitioner(
+                new PathMatchingResourcePatternResolver().getResources("file:" + inputDir + "/*.csv"), 500);
+
+        // When: reading every partition, and failing on the last row of the file
+        Map<String, ExecutionContext> partitions = partitioner.partition(1);
+        List<Integer> lineNumbers = new ArrayList<>();
+        FlatFileParseException failure = null;
+        for (ExecutionContext partition : partitions.values()) {
+            ByteRangeItemReader<String> reader = newReader(partition, (line, lineNumber) -> {
+                if (line.equals(expected.getLast())) {
+                    throw new IllegalArgumentException("bad row");
+                }
+                lineNumbers.add(lineNumber);
+                return line;
+            });
+            reader.open(new ExecutionContext());
+            try {
+                while (reader.read() != null) {
+                    // Only the line numbers are checked
+                }
+            } catch (FlatFileParseException e) {
+                failure = e;
+            }
+            reader.close();
+        }
+
+        // Then: the rows are numbered from 2, after the header, through all ranges
+        assertThat(partitions).hasSizeGreaterThan(1);
+        assertThat(lineNumbers).containsExactlyElementsOf(IntStream.rangeClosed(2, 200).boxed().toList());
+        assertThat(failure).isNotNull();
+        assertThat(failure.getLineNumber()).isEqualTo(201);
+    }
+
+    @Test
+    @DisplayName("Should skip comment lines like the flat file reader, counting them as lines")
+    void testSkipsComments() throws Exception {
+        // Given: a file with comment lines
+        Path file = inputDir.resolve("comments.csv");
+        Files.writeString(file, "name,datetime,temp\n# exported by station A\nA,1,1.0\n#B,2,2.0\nC,3,3.0\n");
+
+        // When: reading it with the default comment prefix, and with another one
+        List<String> lines = readAll(file, null);
+        List<String> otherPrefix = readAll(file, "//");
+
+        // Then: the comment lines are skipped and the other lines keep their line number
+        assertThat(lines).containsExactly("A,1,1.0@3", "C,3,3.0@5");
+        assertThat(otherPrefix).containsExactly("# exported by station A@2", "A,1,1.0@3", "#B,2,2.0@4", "C,3,3.0@5");
+    }
+
+    @Test
+    @DisplayName("Should resume a range from its saved byte offset")
+    void testRestartFromSavedOffset() throws Exception {
+        // Given: a range that was read partially and its state saved
+        List<String> expected = writeRows("restart.csv", 10);
+        var partitioner = new InputFilePartitioner(
+                new PathMatchingResourcePatternResolver().getResources("file:" + inputDir + "/*.csv"), 0);
+        ExecutionContext partition = partitioner.partition(1).values().iterator().next();
+        partition.putLong(InputFilePartitioner.START_OFFSET_KEY, 0);
+        partition.putLong(InputFilePartitioner.END_OFFSET_KEY, Files.size(inputDir.resolve("restart.csv")));
+
+        ByteRangeItemReader<String> first = newReader(partition);
+        ExecutionContext state = new ExecutionContext();
+        first.open(state);
+        for (int i = 0; i < 4; i++) {
+            first.read();
+        }
+        first.update(state);
+        first.close();
+
+        // When: opening a new reader with the saved state
+        ByteRangeItemReader<String> restarted = newReader(partition);
+        restarted.open(state);
+        List<String> lines = new ArrayList<>();
+        for (String line = restarted.read(); line != null; line = restarted.read()) {
+            lines.add(line);
+        }
+        restarted.close();
+
+        // Then: reading continues with the fifth row
+        assertThat(lines).containsExactlyElementsOf(expected.subList(4, 10));
+    }
+
+    @Test
+    @DisplayName("Should read a gzip compressed file as one partition and resume it from a saved offset")
+    void testCompressedFile() throws Exception {
+        // Given: a compressed file larger than the split size
+        List<String> expected = writeRows("compressed.csv", 200);
+        Path compressed = inputDir.resolve("compressed.csv.gz");
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+            Files.copy(inputDir.resolve("compressed.csv"), output);
+        }
+        Files.delete(inputDir.resolve("compressed.csv"));
+        var partitioner = new InputFilePartitioner(
+                new PathMatchingResourcePatternResolver().getResources("file:" + inputDir + "/*.csv.gz"), 500);
+
+        // When: reading part of the file, then restarting from the saved state
+        Map<String, ExecutionContext> partitions = partitioner.partition(1);
+        var first = new ByteRangeItemReader<String>((line, lineNumber) -> line);
+        first.setName("reader");
+        first.setResource(new FileSystemResource(compressed));
+        first.setLinesToSkip(1);
+        ExecutionContext state = new ExecutionContext();
+        first.open(state);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            lines.add(first.read());
+        }
+        first.update(state);
+        first.close();
+
+        var restarted = new ByteRangeItemReader<String>((line, lineNumber) -> line);
+        restarted.setName("reader");
+        restarted.setResource(new FileSystemResource(compressed));
+        restarted.setLinesToSkip(1);
+        restarted.open(state);
+        for (String line = restarted.read(); line != null; line = restarted.read()) {
+            lines.add(line);
+        }
+        restarted.close();
+
+        // Then: the file is not split and every row is read once
+        assertThat(partitions).hasSize(1);
+        assertThat(partitions.values().iterator().next().containsKey(InputFilePartitioner.START_OFFSET_KEY)).isFalse();
+        assertThat(lines).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    @DisplayName("Should read only the complete lines appended since the stored offset")
+    void testTailsGrowingFile() throws Exception {
+        // Given: a file whose last line is still being written
+        Path file = inputDir.resolve("growing.csv");
+        Files.writeString(file, "name,datetime,temp\nA,1,1.0\nB,2,2.0\nC,3");
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        List<Object[]> saved = new ArrayList<>();
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            Object[] arguments = invocation.getArguments();
+            saved.add(Arrays.copyOfRange(arguments, 1, arguments.length));
+            return 1;
+        });
+        var store = new FileOffsetStore(jdbcTemplate);
+
+        // When: tailing the file, then again after the line was completed and another appended
+        List<String> first = tail(file, store, 1L);
+        Object[] offset = saved.getFirst();
+        when(jdbcTemplate.query(anyString(), ArgumentMatchers.<RowMapper<FileOffsetStore.FileOffset>>any(), anyString()))
+                .thenReturn(List.of(new FileOffsetStore.FileOffset(
+                        (String) offset[1], (Long) offset[2], (Long) offset[3], (Integer) offset[4])));
+        Files.writeString(file, ",3.0\nD,4,4.0\n", StandardOpenOption.APPEND);
+        List<String> second = tail(file, store, 2L);
+
+        // Then: each line is read once, numbered by its line in the file
+        assertThat(first).containsExactly("A,1,1.0@2", "B,2,2.0@3");
+        assertThat(second).containsExactly("C,3,3.0@4", "D,4,4.0@5");
+    }
+
+    private static List<String> readAll(Path file, String comment) throws Exception {
+        var reader = new ByteRangeItemReader<String>((line, lineNumber) -> line + "@" + lineNumber);
+        reader.setName("reader");
+        reader.setResource(new FileSystemResource(file));
+        reader.setLinesToSkip(1);
+        if (comment != null) {
+            reader.setComments(comment);
+        }
+        reader.open(new ExecutionContext());
+        List<String> lines = new ArrayList<>();
+        for (String line = reader.read(); line != null; line = reader.read()) {
+            lines.add(line);
+        }
+        reader.close();
+        return lines;
+    }
+
+    private static List<String> tail(Path file, FileOffsetStore store, long stepExecutionId) throws Exception {
+        var reader = new ByteRangeItemReader<String>((line, lineNumber) -> line + "@" + lineNumber);
+        reader.setName("reader");
+        reader.setResource(new FileSystemResource(file));
+        reader.setLinesToSkip(1);
+        reader.setOffsetStore(store, stepExecutionId);
+        reader.open(new ExecutionContext());
+        List<String> lines = new ArrayList<>();
+        for (String line = reader.read(); line != null; line = reader.read()) {
+            lines.add(line);
+        }
+        reader.close();
+
+        StepExecution stepExecution = mock(StepExecution.class);
+        when(stepExecution.getId()).thenReturn(stepExecutionId);
+        when(stepExecution.getStatus()).thenReturn(BatchStatus.COMPLETED);
+        store.afterStep(stepExecution);
+        return lines;
+    }
+
+    private List<String> writeRows(String fileName, int count) throws Exception {
+        List<String> rows = new ArrayList<>();
+        StringBuilder content = new StringBuilder("name,datetime,temp\n");
+        for (int i = 0; i < count; i++) {
+            String row = "Sensor" + (i % 7) + ",2024-01-15T10:" + String.format("%02d", i % 60) + ":00," + (i % 40) + ".5";
+            rows.add(row);
+            content.append(row).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        Files.writeString(inputDir.resolve(fileName), content);
+        return rows;
+    }
+
+    private static ByteRangeItemReader<String> newReader(ExecutionContext partition) throws Exception {
+        return newReader(partition, (line, lineNumber) -> line);
+    }
+
+    private static ByteRangeItemReader<String> newReader(ExecutionContext partition, LineMapper<String> lineMapper)
+            throws Exception {
+        var reader = new ByteRangeItemReader<String>(lineMapper);
+        reader.setName("reader");
+        reader.setResource(new PathMatchingResourcePatternResolver()
+                .getResource(partition.getString(InputFilePartitioner.FILE_NAME_KEY)));
+        reader.setStartOffset(partition.getLong(InputFilePartitioner.START_OFFSET_KEY));
+        reader.setEndOffset(partition.getLong(InputFilePartitioner.END_OFFSET_KEY));
+        reader.setStartLine(partition.getLong(InputFilePartitioner.START_LINE_KEY, 0));
+        reader.setLinesToSkip(1);
+        return reader;
+    }
+}
@@ -0,0 +1,169 @@
+package org.example.etl2.batch.reader;
+
+import org.example.etl2.batch.BaseIntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileOffsetStoreTest extends BaseIntegrationTest {
+
+    private static final String HEADER = "name,datetime,temp\n";
+
+    @TempDir
+    Path inputDir;
+
+    @Autowired
+    private FileOffsetStore store;
+
+    private long stepExecutionId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DELETE FROM input_file_offset");
+    }
+
+    @Test
+    @DisplayName("Should resume exactly at the stored byte offset, reading no line twice and losing none")
+    void testResumesAtStoredOffset() throws Exception {
+        // Given: a file tailed once, whose last line was still being written
+        Path file = inputDir.resolve("growing.csv");
+        Files.writeString(file, HEADER + "A,1,1.0\nB,2,2.0\nC,3");
+        List<String> first = tail(file, BatchStatus.COMPLETED);
+
+        // When: tailing it again after the line was completed and another appended
+        Files.writeString(file, ",3.0\nD,4,4.0\n", StandardOpenOption.APPEND);
+        List<String> second = tail(file, BatchStatus.COMPLETED);
+
+        // Then: each line is read once, numbered by its line in the file
+        assertThat(first).containsExactly("A,1,1.0@2", "B,2,2.0@3");
+        assertThat(second).containsExactly("C,3,3.0@4", "D,4,4.0@5");
+
+        // And: the stored offset is the end of the file
+        assertThat(jdbcTemplate.queryForObject("SELECT byte_offset FROM input_file_offset", Long.class))
+                .isEqualTo(Files.size(file));
+        assertThat(tail(file, BatchStatus.COMPLETED)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should read a file from the start when another file took its name")
+    void testRereadsReplacedFile() throws Exception {
+        // Given: a tailed file
+        Path file = inputDir.resolve("replaced.csv");
+        Files.writeString(file, HEADER + "A,1,1.0\n");
+        tail(file, BatchStatus.COMPLETED);
+
+        // When: it is replaced by a new file with the same first bytes, as log rotation does
+        Path replacement = inputDir.resolve("replacement.tmp");
+        Files.writeString(replacement, HEADER + "A,1,1.0\nB,2,2.0\n");
+        Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Then: the new file is read from the start
+        assertThat(tail(file, BatchStatus.COMPLETED)).containsExactly("A,1,1.0@2", "B,2,2.0@3");
+    }
+
+    @Test
+    @DisplayName("Should read a file from the start when it shrank below the stored offset")
+    void testRereadsTruncatedFile() throws Exception {
+        // Given: a tailed file
+        Path file = inputDir.resolve("truncated.csv");
+        Files.writeString(file, HEADER + "A,1,1.0\nB,2,2.0\n");
+        tail(file, BatchStatus.COMPLETED);
+
+        // When: it is truncated in place and written again with less content
+        Files.writeString(file, HEADER + "E,5,5.0\n");
+
+        // Then: it is read from the start
+        assertThat(tail(file, BatchStatus.COMPLETED)).containsExactly("E,5,5.0@2");
+    }
+
+    @Test
+    @DisplayName("Should read a file from the start when its first bytes changed")
+    void testRereadsRewrittenFile() throws Exception {
+        // Given: a tailed file
+        Path file = inputDir.resolve("rewritten.csv");
+        Files.writeString(file, HEADER + "A,1,1.0\nB,2,2.0\n");
+        tail(file, BatchStatus.COMPLETED);
+
+        // When: it is rewritten in place, keeping its inode, with other rows beyond the offset
+        Files.writeString(file, HEADER + "X,1,1.0\nY,2,2.0\nZ,3,3.0\n");
+
+        // Then: the head hash no longer matches and it is read from the start
+        assertThat(tail(file, BatchStatus.COMPLETED)).containsExactly("X,1,1.0@2", "Y,2,2.0@3", "Z,3,3.0@4");
+    }
+
+    @Test
+    @DisplayName("Should save the offsets a failed step reached once its restart completed")
+    void testKeepsOffsetsOfFailedStep() throws Exception {
+        // Given: a step that finished a file and then failed
+        Path file = inputDir.resolve("finished.csv");
+        Files.writeString(file, HEADER + "A,1,1.0\nB,2,2.0\n");
+        StepExecution failed = newStepExecution(new ExecutionContext());
+        store.beforeStep(failed);
+        read(file, failed);
+        failed.setStatus(BatchStatus.FAILED);
+        store.afterStep(failed);
+
+        // Then: nothing is saved yet, but the offset is kept in the step's execution context
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM input_file_offset", Long.class)).isZero();
+        assertThat(failed.getExecutionContext().containsKey(
+                FileOffsetStore.PENDING_KEY_PREFIX + file.toAbsolutePath().normalize())).isTrue();
+
+        // When: its restart, which does not read the file again, completes
+        StepExecution restarted = newStepExecution(new ExecutionContext(failed.getExecutionContext()));
+        store.beforeStep(restarted);
+        restarted.setStatus(BatchStatus.COMPLETED);
+        store.afterStep(restarted);
+
+        // Then: the offset is saved and the next import starts after the rows already read
+        assertThat(jdbcTemplate.queryForObject("SELECT byte_offset FROM input_file_offset", Long.class))
+                .isEqualTo(Files.size(file));
+        Files.writeString(file, "C,3,3.0\n", StandardOpenOption.APPEND);
+        assertThat(tail(file, BatchStatus.COMPLETED)).containsExactly("C,3,3.0@4");
+    }
+
+    private List<String> tail(Path file, BatchStatus status) throws Exception {
+        StepExecution stepExecution = newStepExecution(new ExecutionContext());
+        store.beforeStep(stepExecution);
+        List<String> lines = read(file, stepExecution);
+        stepExecution.setStatus(status);
+        store.afterStep(stepExecution);
+        return lines;
+    }
+
+    private List<String> read(Path file, StepExecution stepExecution) throws Exception {
+        var reader = new ByteRangeItemReader<String>((line, lineNumber) -> line + "@" + lineNumber);
+        reader.setName("reader");
+        reader.setResource(new FileSystemResource(file));
+        reader.setLinesToSkip(1);
+        reader.setOffsetStore(store, stepExecution.getId());
+        reader.open(new ExecutionContext());
+        List<String> lines = new ArrayList<>();
+        for (String line = reader.read(); line != null; line = reader.read()) {
+            lines.add(line);
+        }
+        reader.close();
+        return lines;
+    }
+
+    private StepExecution newStepExecution(ExecutionContext executionContext) {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution("importStep", ++stepExecutionId);
+        stepExecution.setExecutionContext(executionContext);
+        return stepExecution;
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.etl2.batch.reader;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.batch.infrastructure.item.ItemStreamReader;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PrefetchingItemReaderTest {
+
+    @Test
+    @DisplayName("Should return every item in order and rethrow read errors in place")
+    void testReadsInOrder() throws Exception {
+        // Given: a source of 25 items that fails on the 10th
+        var reader = new PrefetchingItemReader<>(new CountingReader(25, 10), 4, 2);
+        reader.open(new ExecutionContext());
+
+        // When: reading until the end, skipping the failure
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            items.add(reader.read());
+        }
+        assertThatThrownBy(reader::read).hasMessage("bad item 10");
+        for (Integer item = reader.read(); item != null; item = reader.read()) {
+            items.add(item);
+        }
+        reader.close();
+
+        // Then: all other items arrive in order
+        assertThat(items).containsExactly(
+                1, 2, 3, 4, 5, 6, 7, 8, 9, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25);
+    }
+
+    @Test
+    @DisplayName("Should save the position of the last item the step has read, not the read-ahead position")
+    void testSavesConsumedPosition() throws Exception {
+        // Given: a reader with batches of 4 items over a source that fails on the 6th
+        var reader = new PrefetchingItemReader<>(new CountingReader(100, 6), 4, 2);
+        reader.open(new ExecutionContext());
+
+        // When: reading 7 items, one of them the failure, and saving the state
+        for (int i = 0; i < 5; i++) {
+            reader.read();
+        }
+        assertThatThrownBy(reader::read).hasMessage("bad item 6");
+        reader.read();
+        var state = new ExecutionContext();
+        reader.update(state);
+        reader.close();
+
+        // Then: the state is the one at the start of the second batch and the reads taken from it
+        assertThat(state.getInt(CountingReader.POSITION_KEY)).isEqualTo(4);
+        assertThat(state.getInt(PrefetchingItemReader.READ_COUNT_KEY)).isEqualTo(3);
+
+        // And: a reader opened with it resumes right after the last item read
+        var restarted = new PrefetchingItemReader<>(new CountingReader(100, 6), 4, 2);
+        restarted.open(state);
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            items.add(restarted.read());
+        }
+        var restartedState = new ExecutionContext();
+        restarted.update(restartedState);
+        restarted.close();
+        assertThat(items).containsExactly(8, 9, 10, 11, 12, 13);
+
+        // And: its own state counts the reads from the restored position
+        assertThat(restartedState.getInt(CountingReader.POSITION_KEY)).isEqualTo(11);
+        assertThat(restartedState.getInt(PrefetchingItemReader.READ_COUNT_KEY)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should read in the step context of the step that opened it")
+    void testReadsInStepContext() throws Exception {
+        // Given: a reader opened by a step
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        StepSynchronizationManager.register(stepExecution);
+        List<StepExecution> seen = new ArrayList<>();
+        var reader = new PrefetchingItemReader<>(new CountingReader(3, 0) {
+            @Override
+            public Integer read() {
+                StepContext context = StepSynchronizationManager.getContext();
+                seen.add(context != null ? context.getStepExecution() : null);
+                return super.read();
+            }
+        }, 2, 2);
+        try {
+            reader.open(new ExecutionContext());
+
+            // When: reading all items
+            while (reader.read() != null) {
+                // drain
+            }
+            reader.close();
+
+            // Then: the delegate saw the step's context on the background thread
+            assertThat(seen).hasSize(4).containsOnly(stepExecution);
+            // And: the step's own context is still open
+            assertThat(StepSynchronizationManager.getContext().getStepExecution()).isSameAs(stepExecution);
+        } finally {
+            StepSynchronizationManager.close();
+        }
+    }
+
+    private static class CountingReader implements ItemStreamReader<Integer> {
+
+        static final String POSITION_KEY = "position";
+
+        private final int count;
+        private final int failAt;
+        private int position;
+
+        CountingReader(int count, int failAt) {
+            this.count = count;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public void open(ExecutionContext executionContext) {
+            position = executionContext.getInt(POSITION_KEY, 0);
+        }
+
+        @Override
+        public void update(ExecutionContext executionContext) {
+            executionContext.putInt(POSITION_KEY, position);
+        }
+
+        @Override
+        public Integer read() {
+            if (position == count) {
+                return null;
+            }
+            position++;
+            if (position == failAt) {
+                throw new IllegalStateException("bad item " + position);
+            }
+            return position;
+        }
+    }
+}
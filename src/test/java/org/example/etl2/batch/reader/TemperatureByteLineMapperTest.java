@@ -0,0 +1,70 @@
+package org.example.etl2.batch.reader;
+
+import org.example.etl2.model.TemperatureReading;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.batch.infrastructure.item.file.LineMapper;
+import org.springframework.batch.infrastructure.item.file.mapping.DefaultLineMapper;
+import org.springframework.batch.infrastructure.item.file.transform.DelimitedLineTokenizer;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class TemperatureByteLineMapperTest {
+
+    private final LineMapper<TemperatureReading> lineMapper = lineMapper();
+    private final TemperatureByteLineMapper byteLineMapper = new TemperatureByteLineMapper(lineMapper);
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Sensor1,2024-01-15T10:30:00,23.5",
+            "Sensor1,2024-01-15T10:30:00,-0.5",
+            "Sensor1,2024-01-15T10:30:00,+12",
+            "Sensor1,2024-01-15T10:30:00,007.25",
+            "Zürich Süd,2024-02-29T23:59:59,1.0",
+            " Sensor1 ,2024-01-15T10:30:00,23.5",
+            "\"Sensor,1\",2024-01-15T10:30:00,23.5",
+            "Sensor1,2024-01-15T10:30,23.5",
+            "Sensor1,2024-01-15T10:30:00.5,23.5",
+            "Sensor1,2024-01-15T10:30:00,2.35e1",
+            "Sensor1,2024-01-15T10:30:00,",
+            ",2024-01-15T10:30:00,23.5"
+    })
+    @DisplayName("Should map lines exactly like the tokenizer and field set mapper")
+    void testSameResultAsLineMapper(String line) throws Exception {
+        assertThat(map(line)).isEqualTo(lineMapper.mapLine(line, 1));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Sensor1,invalid-date,23.5",
+            "Sensor1,2024-02-30T10:30:00,23.5",
+            "Sensor3,2024-01-15T12:00:00,not-a-number",
+            "Sensor1,2024-01-15T10:30:00,23.5,extra"
+    })
+    @DisplayName("Should fail on malformed lines like the tokenizer and field set mapper")
+    void testSameFailureAsLineMapper(String line) {
+        Throwable expected = catchThrowable(() -> lineMapper.mapLine(line, 1));
+
+        assertThat(catchThrowable(() -> map(line)))
+                .isNotNull()
+                .isExactlyInstanceOf(expected.getClass());
+    }
+
+    private TemperatureReading map(String line) throws Exception {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return byteLineMapper.mapLine(bytes, bytes.length, 1);
+    }
+
+    private static LineMapper<TemperatureReading> lineMapper() {
+        var tokenizer = new DelimitedLineTokenizer(",");
+        tokenizer.setNames("name", "datetime", "temp");
+        var mapper = new DefaultLineMapper<TemperatureReading>();
+        mapper.setLineTokenizer(tokenizer);
+        mapper.setFieldSetMapper(new TemperatureReadingFieldSetMapper());
+        return mapper;
+    }
+}
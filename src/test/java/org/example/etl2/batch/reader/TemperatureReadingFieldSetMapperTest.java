@@ -0,0 +1,91 @@
+package org.example.etl2.batch.reader;
+
+import org.example.etl2.model.TemperatureReading;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.batch.infrastructure.item.file.mapping.FieldSetMapper;
+import org.springframework.batch.infrastructure.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.batch.infrastructure.item.file.transform.FieldSet;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class TemperatureReadingFieldSetMapperTest {
+
+    /** The mapper before the fields were decoded by {@link TemperatureFieldDecoder}. */
+    private static final FieldSetMapper<TemperatureReading> PREVIOUS_MAPPER = fieldSet -> new TemperatureReading(
+            fieldSet.readString("name"),
+            LocalDateTime.parse(fieldSet.readString("datetime"), DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+            fieldSet.readBigDecimal("temp"));
+
+    private final TemperatureReadingFieldSetMapper mapper = new TemperatureReadingFieldSetMapper();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // Valid
+            "Sensor1,2024-01-15T10:30:00,23.5",
+            "Sensor1,2024-01-15T10:30:00,-0.5",
+            "Sensor1,2024-01-15T10:30:00,+12",
+            "Sensor1,2024-01-15T10:30:00,007.25",
+            "Sensor1,2024-01-15T10:30:00,.5",
+            "Sensor1,2024-01-15T10:30:00,5.",
+            "Sensor1,2024-01-15T10:30:00,2.35e1",
+            "Sensor1,2024-01-15T10:30:00,1234567890123456789.5",
+            "Sensor1,2024-01-15T10:30:00,\"1,234.5\"",
+            "Sensor1,2024-02-29T23:59:59,1.0",
+            "Sensor1,2024-01-15T10:30,23.5",
+            "Sensor1,2024-01-15T10:30:00.5,23.5",
+            // Blank
+            "Sensor1,2024-01-15T10:30:00,",
+            "Sensor1,2024-01-15T10:30:00,   ",
+            "Sensor1,2024-01-15T10:30:00,\t",
+            "Sensor1,2024-01-15T10:30:00, ",
+            ",2024-01-15T10:30:00,23.5",
+            // Padded
+            " Sensor1 ,2024-01-15T10:30:00,23.5",
+            "Sensor1, 2024-01-15T10:30:00 ,23.5",
+            "Sensor1,2024-01-15T10:30:00, 23.5",
+            "Sensor1,2024-01-15T10:30:00,23.5 ",
+            "Sensor1,2024-01-15T10:30:00,\t-7\t"
+    })
+    @DisplayName("Should map valid, blank and padded fields like the previous mapper")
+    void testSameResultAsPreviousMapper(String line) throws Exception {
+        FieldSet fieldSet = tokenize(line);
+
+        assertThat(mapper.mapFieldSet(fieldSet)).isEqualTo(PREVIOUS_MAPPER.mapFieldSet(fieldSet));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Sensor1,invalid-date,23.5",
+            "Sensor1,2024-02-30T10:30:00,23.5",
+            "Sensor1,2024-01-15T24:00:00,23.5",
+            "Sensor1,2024-1-15T10:30:00,23.5",
+            "Sensor1,2024-01-15 10:30:00,23.5",
+            "Sensor1,,23.5",
+            "Sensor1,   ,23.5",
+            "Sensor3,2024-01-15T12:00:00,not-a-number",
+            "Sensor3,2024-01-15T12:00:00,-",
+            "Sensor3,2024-01-15T12:00:00,.",
+            "Sensor3,2024-01-15T12:00:00,1.2.3",
+            "Sensor3,2024-01-15T12:00:00,1 2",
+            "Sensor3,2024-01-15T12:00:00,--1"
+    })
+    @DisplayName("Should reject malformed fields that the previous mapper rejected")
+    void testFailsLikePreviousMapper(String line) {
+        FieldSet fieldSet = tokenize(line);
+
+        assertThat(catchThrowable(() -> PREVIOUS_MAPPER.mapFieldSet(fieldSet))).isNotNull();
+        assertThat(catchThrowable(() -> mapper.mapFieldSet(fieldSet))).isNotNull();
+    }
+
+    private static FieldSet tokenize(String line) {
+        var tokenizer = new DelimitedLineTokenizer(",");
+        tokenizer.setNames("name", "datetime", "temp");
+        return tokenizer.tokenize(line);
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.etl2.batch.tasklet;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PartitionMaintenanceTaskletTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final Clock clock = Clock.fixed(Instant.parse("2024-05-10T00:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    @DisplayName("Should start the monthly partitions at the current month and split off the older rows by month")
+    void testCreatesFirstPartitions() {
+        // Given: a freshly partitioned table whose oldest row is from March, moved to p_past by the first split
+        partitions("p_past", "p_future");
+        when(jdbcTemplate.queryForObject(contains("MIN(datetime)"), eq(LocalDateTime.class)))
+                .thenReturn(LocalDateTime.of(2024, 3, 20, 8, 0));
+
+        // When: running the maintenance with two months ahead
+        new PartitionMaintenanceTasklet(jdbcTemplate, 2, 0, clock).execute(null, null);
+
+        // Then: May to July are created between p_past and p_future
+        verify(jdbcTemplate).execute("ALTER TABLE temperature_data REORGANIZE PARTITION p_past, p_future INTO ("
+                + "PARTITION p_past VALUES LESS THAN (TO_DAYS('2024-05-01')), "
+                + "PARTITION p202405 VALUES LESS THAN (TO_DAYS('2024-06-01')), "
+                + "PARTITION p202406 VALUES LESS THAN (TO_DAYS('2024-07-01')), "
+                + "PARTITION p202407 VALUES LESS THAN (TO_DAYS('2024-08-01')), "
+                + "PARTITION p_future VALUES LESS THAN MAXVALUE)");
+
+        // And: March and April are split off p_past
+        verify(jdbcTemplate).execute("ALTER TABLE temperature_data REORGANIZE PARTITION p_past INTO ("
+                + "PARTITION p_past VALUES LESS THAN (TO_DAYS('2024-03-01')), "
+                + "PARTITION p202403 VALUES LESS THAN (TO_DAYS('2024-04-01')), "
+                + "PARTITION p202404 VALUES LESS THAN (TO_DAYS('2024-05-01')))");
+    }
+
+    @Test
+    @DisplayName("Should split the rows of an imported backfill off p_past, leaving the existing months alone")
+    void testSplitsBackfill() {
+        // Given: partitions from April and rows of January imported since
+        partitions("p_past", "p202404", "p202405", "p202406", "p202407", "p_future");
+        when(jdbcTemplate.queryForObject(contains("MIN(datetime)"), eq(LocalDateTime.class)))
+                .thenReturn(LocalDateTime.of(2024, 1, 31, 23, 59));
+
+        // When: running the maintenance with two months ahead and three months of retention
+        new PartitionMaintenanceTasklet(jdbcTemplate, 2, 3, clock).execute(null, null);
+
+        // Then: January to March are split off p_past
+        verify(jdbcTemplate, never()).execute(contains("REORGANIZE PARTITION p_future"));
+        verify(jdbcTemplate).execute("ALTER TABLE temperature_data REORGANIZE PARTITION p_past INTO ("
+                + "PARTITION p_past VALUES LESS THAN (TO_DAYS('2024-01-01')), "
+                + "PARTITION p202401 VALUES LESS THAN (TO_DAYS('2024-02-01')), "
+                + "PARTITION p202402 VALUES LESS THAN (TO_DAYS('2024-03-01')), "
+                + "PARTITION p202403 VALUES LESS THAN (TO_DAYS('2024-04-01')))");
+
+        // And: only the months past retention are dropped
+        verify(jdbcTemplate).execute("ALTER TABLE temperature_data DROP PARTITION p202401");
+    }
+
+    @Test
+    @DisplayName("Should only add the missing months and drop the ones past retention")
+    void testAddsAndDropsPartitions() {
+        // Given: partitions from January to June
+        partitions("p_past", "p202401", "p202402", "p202403", "p202404", "p202405", "p202406", "p_future");
+
+        // When: running the maintenance with one month ahead and two months of retention
+        new PartitionMaintenanceTasklet(jdbcTemplate, 1, 2, clock).execute(null, null);
+
+        // Then: nothing is created and the months before March are dropped
+        verify(jdbcTemplate, never()).execute(contains("REORGANIZE"));
+        verify(jdbcTemplate).execute("ALTER TABLE temperature_data DROP PARTITION p202401, p202402");
+    }
+
+    @Test
+    @DisplayName("Should leave a table without p_past and p_future alone")
+    void testSkipsUnpartitionedTable() {
+        // Given: a table without partitions
+        partitions();
+
+        // When: running the maintenance
+        new PartitionMaintenanceTasklet(jdbcTemplate, 3, 1, clock).execute(null, null);
+
+        // Then: no DDL is run
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    private void partitions(String... names) {
+        when(jdbcTemplate.queryForList(contains("information_schema.PARTITIONS"), eq(String.class)))
+                .thenReturn(List.of(names));
+    }
+}
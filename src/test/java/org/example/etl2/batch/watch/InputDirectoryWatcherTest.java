@@ -0,0 +1,255 @@
+package org.example.etl2.batch.watch;
+
+import org.example.etl2.batch.listener.ProcessedFileRenamer;
+import org.example.etl2.batch.reader.MultiFileReaderConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mockito.ArgumentCaptor;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.job.Job;
+import org.springframework.batch.core.job.JobExecution;
+import org.springframework.batch.core.job.parameters.JobParameters;
+import org.springframework.batch.core.launch.JobOperator;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InputDirectoryWatcherTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-10T12:00:00Z");
+    private static final Duration QUIET_PERIOD = Duration.ofSeconds(10);
+
+    @TempDir
+    Path inputDir;
+
+    private final JobOperator jobOperator = mock(JobOperator.class);
+    private final JobRepository jobRepository = mock(JobRepository.class);
+    private final Job job = mock(Job.class);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(job.getName()).thenReturn("temperatureImportJob");
+        when(jobOperator.start(any(Job.class), any(JobParameters.class))).thenReturn(execution(BatchStatus.COMPLETED));
+    }
+
+    @Test
+    @DisplayName("Should only pick up a file once it stayed unchanged for the quiet period")
+    void testWaitsForQuietPeriod() throws Exception {
+        // Given: a file modified within the quiet period
+        Path file = write("data.csv", NOW.minusSeconds(5));
+        InputDirectoryWatcher watcher = watcher(20);
+
+        // When / Then: it is not imported however often it is polled
+        assertThat(watcher.poll()).isFalse();
+        assertThat(watcher.poll()).isFalse();
+
+        // When: it was last modified before the quiet period
+        Files.setLastModifiedTime(file, FileTime.from(NOW.minusSeconds(20)));
+
+        // Then: it is imported from the second poll that finds it unchanged
+        assertThat(watcher.poll()).isFalse();
+        assertThat(watcher.poll()).isTrue();
+        assertThat(launchedFiles()).containsExactly("data.csv");
+    }
+
+    @Test
+    @DisplayName("Should import csv and gzip compressed csv files, oldest first, and nothing else")
+    void testMatchesInputFiles() throws Exception {
+        // Given: input files next to other files
+        write("b.csv.gz", NOW.minusSeconds(60));
+        write("a.csv", NOW.minusSeconds(30));
+        write("c.txt", NOW.minusSeconds(90));
+        write("d.csv.processed", NOW.minusSeconds(90));
+        InputDirectoryWatcher watcher = watcher(20);
+
+        // When: polling until the files are ready
+        watcher.poll();
+        watcher.poll();
+
+        // Then: only the input files are imported, the oldest first
+        assertThat(launchedFiles()).containsExactly("b.csv.gz,a.csv");
+    }
+
+    @Test
+    @DisplayName("Should split a backlog into jobs of at most max-files-per-job files")
+    void testLimitsFilesPerJob() throws Exception {
+        // Given: five ready files and at most two per job
+        for (int i = 1; i <= 5; i++) {
+            write("file" + i + ".csv", NOW.minusSeconds(100 - i));
+        }
+        InputDirectoryWatcher watcher = watcher(2);
+        watcher.poll();
+
+        // When: polling while there is a backlog
+        assertThat(watcher.poll()).isTrue();
+        assertThat(watcher.poll()).isTrue();
+        assertThat(watcher.poll()).isTrue();
+        assertThat(watcher.poll()).isFalse();
+
+        // Then: the files are imported two at a time
+        assertThat(launchedFiles()).containsExactly("file1.csv,file2.csv", "file3.csv,file4.csv", "file5.csv");
+    }
+
+    @Test
+    @DisplayName("Should split a backlog into jobs whose file names fit in the job parameter")
+    void testLimitsParameterLength() throws Exception {
+        // Given: ten ready files with names of 250 characters
+        for (int i = 0; i < 10; i++) {
+            write(i + "x".repeat(245) + ".csv", NOW.minusSeconds(100 - i));
+        }
+        InputDirectoryWatcher watcher = watcher(20);
+        watcher.poll();
+
+        // When: polling while there is a backlog
+        assertThat(watcher.poll()).isTrue();
+        assertThat(watcher.poll()).isTrue();
+
+        // Then: the first job takes as many files as fit, the second the rest
+        List<String> launched = launchedFiles();
+        assertThat(launched).hasSize(2);
+        assertThat(launched.get(0).length()).isLessThanOrEqualTo(InputDirectoryWatcher.MAX_PARAMETER_LENGTH);
+        assertThat(launched.get(0).split(",")).hasSize(7);
+        assertThat(launched.get(1).split(",")).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Should not launch unchanged files of a failed job again, but launch them once they changed")
+    void testNoRelaunchOfUnchangedFiles() throws Exception {
+        // Given: a ready file whose job fails
+        when(jobOperator.start(any(Job.class), any(JobParameters.class))).thenReturn(execution(BatchStatus.FAILED));
+        Path file = write("data.csv", NOW.minusSeconds(60));
+        InputDirectoryWatcher watcher = watcher(20);
+        watcher.poll();
+        assertThat(watcher.poll()).isTrue();
+
+        // When / Then: it is not launched again while it is unchanged
+        assertThat(watcher.poll()).isFalse();
+        assertThat(watcher.poll()).isFalse();
+        assertThat(Files.exists(file)).isTrue();
+
+        // When: it changed
+        Files.writeString(file, "name,datetime,temp\nA,2024-01-01T00:00:00,1.0\n");
+        Files.setLastModifiedTime(file, FileTime.from(NOW.minusSeconds(30)));
+        watcher.poll();
+
+        // Then: it is launched again as a new job instance, with another fingerprint
+        assertThat(watcher.poll()).isTrue();
+        ArgumentCaptor<JobParameters> parameters = ArgumentCaptor.forClass(JobParameters.class);
+        verify(jobOperator, times(2)).start(any(Job.class), parameters.capture());
+        assertThat(parameters.getAllValues().get(0).getString(InputDirectoryWatcher.FINGERPRINT_PARAMETER))
+                .isNotEqualTo(parameters.getAllValues().get(1).getString(InputDirectoryWatcher.FINGERPRINT_PARAMETER));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = BatchStatus.class, names = {"FAILED", "STOPPED"})
+    @DisplayName("Should restart the job instance of unchanged files that failed or stopped")
+    void testRestartsFailedInstance(BatchStatus status) throws Exception {
+        // Given: unchanged files whose job instance failed or stopped before the application restarted
+        write("data.csv", NOW.minusSeconds(60));
+        JobExecution last = execution(status);
+        when(jobRepository.getLastJobExecution(anyString(), any(JobParameters.class))).thenReturn(last);
+        when(jobOperator.restart(last)).thenReturn(execution(BatchStatus.COMPLETED));
+        InputDirectoryWatcher watcher = watcher(20);
+
+        // When: they are ready
+        watcher.poll();
+        watcher.poll();
+
+        // Then: the instance is restarted instead of a new one started
+        verify(jobOperator).restart(last);
+        verify(jobOperator, never()).start(any(Job.class), any(JobParameters.class));
+        assertThat(Files.exists(inputDir.resolve("data.csv.processed"))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should only rename unchanged files whose job instance already completed")
+    void testSkipsCompletedInstance() throws Exception {
+        // Given: unchanged files whose job instance completed, but which were not renamed
+        write("data.csv", NOW.minusSeconds(60));
+        when(jobRepository.getLastJobExecution(anyString(), any(JobParameters.class)))
+                .thenReturn(execution(BatchStatus.COMPLETED));
+        InputDirectoryWatcher watcher = watcher(20);
+
+        // When: they are ready
+        watcher.poll();
+        watcher.poll();
+
+        // Then: no job is run and the files are renamed
+        verify(jobOperator, never()).start(any(Job.class), any(JobParameters.class));
+        verify(jobOperator, never()).restart(any(JobExecution.class));
+        assertThat(Files.exists(inputDir.resolve("data.csv"))).isFalse();
+        assertThat(Files.exists(inputDir.resolve("data.csv.processed"))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should rename the files once their job completed, and leave them when it failed")
+    void testRenamesImportedFiles() throws Exception {
+        // Given: two ready files, the first imported by a completed job and the second by a failed one
+        write("first.csv", NOW.minusSeconds(60));
+        write("second.csv", NOW.minusSeconds(30));
+        when(jobOperator.start(any(Job.class), any(JobParameters.class)))
+                .thenReturn(execution(BatchStatus.COMPLETED), execution(BatchStatus.FAILED));
+        InputDirectoryWatcher watcher = watcher(1);
+
+        // When: importing them
+        watcher.poll();
+        watcher.poll();
+        watcher.poll();
+
+        // Then: only the file of the completed job is renamed
+        assertThat(Files.exists(inputDir.resolve("first.csv.processed"))).isTrue();
+        assertThat(Files.exists(inputDir.resolve("first.csv"))).isFalse();
+        assertThat(Files.exists(inputDir.resolve("second.csv"))).isTrue();
+    }
+
+    private InputDirectoryWatcher watcher(int maxFilesPerJob) {
+        return new InputDirectoryWatcher(jobOperator, jobRepository, job, new ProcessedFileRenamer(), true, inputDir,
+                Duration.ofSeconds(5), QUIET_PERIOD, maxFilesPerJob, false, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private Path write(String name, Instant lastModified) throws IOException {
+        Path file = Files.writeString(inputDir.resolve(name), "name,datetime,temp\n");
+        Files.setLastModifiedTime(file, FileTime.from(lastModified));
+        return file;
+    }
+
+    /**
+     * @return the {@code input.files} parameter of every started job
+     */
+    private List<String> launchedFiles() throws Exception {
+        ArgumentCaptor<JobParameters> parameters = ArgumentCaptor.forClass(JobParameters.class);
+        verify(jobOperator, atLeast(0)).start(any(Job.class), parameters.capture());
+        return parameters.getAllValues().stream()
+                .map(jobParameters -> jobParameters.getString(MultiFileReaderConfig.INPUT_FILES_PARAMETER))
+                .toList();
+    }
+
+    private static JobExecution execution(BatchStatus status) {
+        JobExecution execution = MetaDataInstanceFactory.createJobExecution();
+        execution.setStatus(status);
+        return execution;
+    }
+}
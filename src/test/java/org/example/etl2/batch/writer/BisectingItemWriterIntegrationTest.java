@@ -0,0 +1,90 @@
+package org.example.etl2.batch.writer;
+
+import org.example.etl2.batch.BaseIntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.infrastructure.item.SkipWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bisects chunks on MySQL with real savepoints. The import's writers use
+ * {@code INSERT IGNORE}, which turns most row errors into warnings, so the delegate
+ * here uses a plain {@code INSERT} to have rows the database really rejects.
+ */
+class BisectingItemWriterIntegrationTest extends BaseIntegrationTest {
+
+    private static final String INSERT_SQL = "INSERT INTO temperature_data (station_id, datetime, temp) VALUES (?, ?, 1.0)";
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private int stationId;
+
+    @BeforeEach
+    void setUp() {
+        clearDatabase();
+        jdbcTemplate.update("INSERT IGNORE INTO station (name) VALUES ('Bisected')");
+        stationId = jdbcTemplate.queryForObject("SELECT id FROM station WHERE name = 'Bisected'", Integer.class);
+    }
+
+    @Test
+    @DisplayName("Should commit the other rows of a chunk and skip the rows MySQL rejected, rolling back to savepoints")
+    void testIsolatesRowsRejectedByDatabase() {
+        // Given: a stored row, and a chunk of 100 rows repeating it and repeating one of its own rows
+        jdbcTemplate.update(INSERT_SQL, stationId, Timestamp.valueOf(START.plusMinutes(30)));
+        List<Integer> minutes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            minutes.add(i);
+        }
+        minutes.set(70, 10);
+        List<Integer> writes = new ArrayList<>();
+        var writer = new BisectingItemWriter<Integer>(chunk -> {
+            writes.add(chunk.size());
+            for (int minute : chunk) {
+                jdbcTemplate.update(INSERT_SQL, stationId, Timestamp.valueOf(START.plusMinutes(minute)));
+            }
+        }, dataSource);
+        Chunk<Integer> chunk = new Chunk<>(minutes);
+
+        // When: writing the chunk in a transaction
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try {
+                writer.write(chunk);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // Then: the two rejected rows are skipped with the database's error
+        assertThat(chunk.getSkips()).extracting(SkipWrapper::getItem).containsExactly(30, 10);
+        assertThat(chunk.getSkips()).extracting(SkipWrapper::getException)
+                .allSatisfy(exception -> assertThat(exception).isInstanceOf(DuplicateKeyException.class));
+
+        // And: every other row is committed once, the rows written before a failure in its half rolled back
+        assertThat(countRecords()).isEqualTo(99);
+        assertThat(jdbcTemplate.queryForObject("""
+                SELECT COUNT(DISTINCT datetime) FROM temperature_data WHERE station_id = ?""", Long.class, stationId))
+                .isEqualTo(99);
+
+        // And: the chunk was bisected instead of written row by row
+        assertThat(writes.getFirst()).isEqualTo(100);
+        assertThat(writes).hasSizeLessThan(30);
+    }
+}
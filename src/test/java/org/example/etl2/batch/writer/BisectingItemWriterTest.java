@@ -0,0 +1,90 @@
+package org.example.etl2.batch.writer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.infrastructure.item.SkipWrapper;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BisectingItemWriterTest {
+
+    private final DataSource dataSource = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private final List<Integer> written = new ArrayList<>();
+    private int writes;
+    private int failures;
+
+    @BeforeEach
+    void bindTransaction() throws Exception {
+        when(connection.setSavepoint()).thenAnswer(invocation -> mock(Savepoint.class));
+        TransactionSynchronizationManager.bindResource(dataSource, new ConnectionHolder(connection));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    @AfterEach
+    void unbindTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.unbindResource(dataSource);
+    }
+
+    @Test
+    @DisplayName("Should write all other rows and mark rejected rows as skipped")
+    void testIsolatesRejectedRows() throws Exception {
+        // Given: a chunk of 1000 rows of which two are rejected by the database
+        var writer = new BisectingItemWriter<Integer>(chunk -> {
+            writes++;
+            if (chunk.getItems().contains(17) || chunk.getItems().contains(600)) {
+                failures++;
+                throw new DataIntegrityViolationException("Out of range value");
+            }
+            written.addAll(chunk.getItems());
+        }, dataSource);
+        Chunk<Integer> chunk = new Chunk<>(IntStream.range(0, 1000).boxed().toList());
+
+        // When: writing the chunk
+        writer.write(chunk);
+
+        // Then: the other rows are written and the rejected ones are skipped
+        assertThat(written).hasSize(998).doesNotContain(17, 600);
+        assertThat(chunk.getItems()).hasSize(998);
+        assertThat(chunk.getSkips()).extracting(SkipWrapper::getItem).containsExactly(17, 600);
+
+        // And: far fewer writes are needed than one per row
+        assertThat(writes).isLessThan(50);
+
+        // And: every savepoint is released, the rejected ones after rolling back to them
+        verify(connection, times(writes)).setSavepoint();
+        verify(connection, times(writes)).releaseSavepoint(any(Savepoint.class));
+        verify(connection, times(failures)).rollback(any(Savepoint.class));
+    }
+
+    @Test
+    @DisplayName("Should rethrow errors that are not caused by the rows")
+    void testRethrowsOtherErrors() {
+        var writer = new BisectingItemWriter<Integer>(chunk -> {
+            throw new IllegalStateException("Connection lost");
+        }, dataSource);
+
+        assertThatThrownBy(() -> writer.write(Chunk.of(1, 2, 3)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.etl2.batch.writer;
+
+import org.example.etl2.model.TemperatureReading;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeduplicatingItemWriterTest {
+
+    private final List<TemperatureReading> written = new ArrayList<>();
+    private final DuplicateReporter duplicateReporter = mock(DuplicateReporter.class);
+    private final StationDictionary stationDictionary = mock(StationDictionary.class);
+
+    @BeforeEach
+    void setUp() {
+        when(stationDictionary.ids(anyList())).thenAnswer(invocation -> {
+            List<TemperatureReading> items = invocation.getArgument(0);
+            return items.stream().mapToInt(item -> item.name().charAt(0)).toArray();
+        });
+    }
+
+    @Test
+    @DisplayName("Should write the first occurrence and report later ones within and across chunks")
+    void testDropsRepeatedReadings() throws Exception {
+        // Given: a writer outside of a transaction
+        var writer = new DeduplicatingItemWriter(chunk -> written.addAll(chunk.getItems()), stationDictionary, duplicateReporter, 1000);
+
+        // When: writing two chunks that repeat readings
+        writer.write(Chunk.of(reading("A", 0, "1.0"), reading("B", 0, "2.0"), reading("A", 0, "3.0")));
+        writer.write(Chunk.of(reading("B", 0, "4.0"), reading("B", 1, "5.0")));
+
+        // Then: only the first reading of each station and time is written
+        assertThat(written).extracting(TemperatureReading::temp)
+                .containsExactly(new BigDecimal("1.0"), new BigDecimal("2.0"), new BigDecimal("5.0"));
+        verify(duplicateReporter).reportDuplicates(List.of(reading("A", 0, "3.0")));
+        verify(duplicateReporter).reportDuplicates(List.of(reading("B", 0, "4.0")));
+    }
+
+    @Test
+    @DisplayName("Should not remember readings of a chunk whose transaction rolled back")
+    void testForgetsRolledBackChunk() throws Exception {
+        var writer = new DeduplicatingItemWriter(chunk -> written.addAll(chunk.getItems()), stationDictionary, duplicateReporter, 1000);
+
+        // Given: a chunk written in a transaction that is rolled back
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            writer.write(Chunk.of(reading("A", 0, "1.0")));
+        } finally {
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // When: the chunk is written again
+        writer.write(Chunk.of(reading("A", 0, "1.0")));
+
+        // Then: the reading is written both times and never reported
+        assertThat(written).hasSize(2);
+        verify(duplicateReporter, never()).reportDuplicates(argThat(list -> !list.isEmpty()));
+    }
+
+    @Test
+    @DisplayName("Should keep distinct keys for distinct stations and seconds")
+    void testKeysAreDistinct() {
+        var keys = new LongHashSet(16);
+
+        for (int stationId : new int[]{1, 2, 1 << 28}) {
+            for (int second = 0; second < 100; second++) {
+                long key = DeduplicatingItemWriter.key(stationId, reading("A", second, "0.0").datetime());
+                assertThat(keys.add(key)).isTrue();
+            }
+        }
+        assertThat(keys.size()).isEqualTo(300);
+        assertThat(DeduplicatingItemWriter.key(1, LocalDateTime.of(1500, 1, 1, 0, 0))).isEqualTo(-1);
+    }
+
+    private static TemperatureReading reading(String name, int second, String temp) {
+        return new TemperatureReading(name, LocalDateTime.of(2024, 1, 1, 0, 0, 0).plusSeconds(second),
+                new BigDecimal(temp));
+    }
+}
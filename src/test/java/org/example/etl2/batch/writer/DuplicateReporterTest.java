@@ -0,0 +1,93 @@
+package org.example.etl2.batch.writer;
+
+import org.example.etl2.batch.listener.DuplicateLogWriter;
+import org.example.etl2.batch.listener.ImportMetrics;
+import org.example.etl2.batch.listener.JobCompletionListener;
+import org.example.etl2.model.TemperatureReading;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class DuplicateReporterTest {
+
+    private final DuplicateLogWriter duplicateLogWriter = mock(DuplicateLogWriter.class);
+    private final JobCompletionListener jobCompletionListener = mock(JobCompletionListener.class);
+    private final ImportMetrics importMetrics = mock(ImportMetrics.class);
+    private final DuplicateReporter reporter = new DuplicateReporter(duplicateLogWriter, jobCompletionListener, importMetrics);
+
+    @Test
+    @DisplayName("Should report duplicates of a transaction once it committed")
+    void testReportsAfterCommit() {
+        // Given: duplicates reported twice within a transaction
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            reporter.reportDuplicates(List.of(reading(0)));
+            reporter.reportDuplicateCount(2);
+
+            // Then: nothing is reported before the commit
+            verify(jobCompletionListener, never()).addDuplicates(anyLong());
+            verify(duplicateLogWriter, never()).writeDuplicate(any());
+        } finally {
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        // Then: the commit reports all of them at once
+        verify(duplicateLogWriter).writeDuplicate(reading(0));
+        verify(jobCompletionListener).addDuplicates(3);
+        verify(importMetrics).recordDuplicates(3);
+    }
+
+    @Test
+    @DisplayName("Should drop duplicates of a rolled back transaction so that a retry counts them once")
+    void testDropsRolledBackDuplicates() {
+        // Given: a chunk whose transaction is rolled back
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            reporter.reportDuplicates(List.of(reading(0), reading(1)));
+        } finally {
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        // When: the chunk is retried and commits
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            reporter.reportDuplicates(List.of(reading(0), reading(1)));
+        } finally {
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        // Then: only the committed attempt is reported
+        verify(duplicateLogWriter).writeDuplicate(reading(0));
+        verify(duplicateLogWriter).writeDuplicate(reading(1));
+        verify(jobCompletionListener).addDuplicates(2);
+    }
+
+    @Test
+    @DisplayName("Should report right away outside of a transaction")
+    void testReportsWithoutTransaction() {
+        reporter.reportDuplicateCount(4);
+
+        verify(jobCompletionListener).addDuplicates(4);
+        verify(importMetrics).recordDuplicates(4);
+    }
+
+    private static void complete(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(status));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static TemperatureReading reading(int hour) {
+        return new TemperatureReading("Station", LocalDateTime.of(2024, 1, 1, 0, 0).plusHours(hour), new BigDecimal("20.5"));
+    }
+}
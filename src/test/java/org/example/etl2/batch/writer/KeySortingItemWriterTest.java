@@ -0,0 +1,87 @@
+package org.example.etl2.batch.writer;
+
+import org.example.etl2.model.TemperatureReading;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.infrastructure.item.Chunk;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeySortingItemWriterTest {
+
+    private final List<Chunk<? extends TemperatureReading>> written = new ArrayList<>();
+    private final KeySortingItemWriter writer = new KeySortingItemWriter(written::add);
+
+    @Test
+    @DisplayName("Should write readings ordered by station and datetime, keeping repeated keys in input order")
+    void testSortsByKey() throws Exception {
+        // Given: a chunk interleaving stations, with a repeated reading
+        var chunk = Chunk.of(reading("B", 1, "1.0"), reading("A", 2, "2.0"), reading("B", 0, "3.0"),
+                reading("A", 2, "4.0"), reading("A", 1, "5.0"));
+
+        // When: writing the chunk
+        writer.write(chunk);
+
+        // Then: the delegate gets the readings in key order, the first repeated reading first
+        assertThat(written.getFirst().getItems()).extracting(TemperatureReading::temp)
+                .containsExactly(new BigDecimal("5.0"), new BigDecimal("2.0"), new BigDecimal("4.0"),
+                        new BigDecimal("3.0"), new BigDecimal("1.0"));
+    }
+
+    @Test
+    @DisplayName("Should pass a chunk already in key order on unchanged")
+    void testKeepsSortedChunk() throws Exception {
+        // Given: a chunk in key order
+        var chunk = Chunk.of(reading("A", 0, "1.0"), reading("A", 1, "2.0"), reading("B", 0, "3.0"));
+
+        // When: writing the chunk
+        writer.write(chunk);
+
+        // Then: the delegate gets the same chunk
+        assertThat(written.getFirst()).isSameAs(chunk);
+    }
+
+    @Test
+    @DisplayName("Should sort shuffled chunks of any size stably")
+    void testSortsShuffledChunks() throws Exception {
+        Random random = new Random(42);
+        for (int size = 0; size < 100; size++) {
+            // Given: a shuffled chunk with repeated keys, numbered in input order
+            List<TemperatureReading> items = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                items.add(reading(String.valueOf((char) ('A' + random.nextInt(3))), random.nextInt(4),
+                        String.valueOf(i)));
+            }
+            Collections.shuffle(items, random);
+            List<BigDecimal> inputOrder = items.stream().map(TemperatureReading::temp).toList();
+            written.clear();
+
+            // When: writing the chunk
+            writer.write(new Chunk<>(items));
+
+            // Then: the readings are in key order, readings with the same key in input order
+            List<? extends TemperatureReading> sorted = written.getFirst().getItems();
+            assertThat(sorted).hasSize(size);
+            for (int i = 1; i < sorted.size(); i++) {
+                int order = KeySortingItemWriter.KEY_ORDER.compare(sorted.get(i - 1), sorted.get(i));
+                assertThat(order).isLessThanOrEqualTo(0);
+                if (order == 0) {
+                    assertThat(inputOrder.indexOf(sorted.get(i - 1).temp()))
+                            .isLessThan(inputOrder.indexOf(sorted.get(i).temp()));
+                }
+            }
+        }
+    }
+
+    private static TemperatureReading reading(String name, int second, String temp) {
+        return new TemperatureReading(name, LocalDateTime.of(2024, 1, 1, 0, 0, 0).plusSeconds(second),
+                new BigDecimal(temp));
+    }
+}
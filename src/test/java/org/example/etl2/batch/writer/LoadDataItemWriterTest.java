@@ -0,0 +1,76 @@
+package org.example.etl2.batch.writer;
+
+import org.example.etl2.batch.BaseIntegrationTest;
+import org.example.etl2.batch.listener.JobCompletionListener;
+import org.example.etl2.model.TemperatureReading;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoadDataItemWriterTest extends BaseIntegrationTest {
+
+    @Autowired
+    private StationDictionary stationDictionary;
+
+    @Autowired
+    private DuplicateReporter duplicateReporter;
+
+    @Autowired
+    private JobCompletionListener jobCompletionListener;
+
+    private LoadDataItemWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        clearDatabase();
+        jobCompletionListener.resetDuplicatesCount();
+        writer = new LoadDataItemWriter(jdbcTemplate, stationDictionary, duplicateReporter);
+    }
+
+    @Test
+    @DisplayName("Should store values exactly, whatever the station name contains")
+    void testStoresValuesExactly() {
+        // Given: edge values, and station names with the TSV field and line separators,
+        // which never reach the file as stations are written by id
+        List<TemperatureReading> readings = List.of(
+                new TemperatureReading("Tab\tStation", LocalDateTime.of(1900, 1, 1, 0, 0, 0), new BigDecimal("-89.9")),
+                new TemperatureReading("Line\nStation", LocalDateTime.of(2024, 12, 31, 23, 59, 59), new BigDecimal("0.0")),
+                new TemperatureReading("Back\\slash 'quote'", LocalDateTime.of(2024, 2, 29, 12, 5, 9), new BigDecimal("59.9")));
+
+        // When: loading them
+        writer.write(new Chunk<>(readings));
+
+        // Then: every row reads back unchanged
+        List<TemperatureReading> stored = jdbcTemplate.query("""
+                        SELECT s.name, t.datetime, t.temp FROM temperature_data t
+                        JOIN station s ON s.id = t.station_id ORDER BY t.temp""",
+                (rs, rowNum) -> new TemperatureReading(rs.getString(1), rs.getTimestamp(2).toLocalDateTime(),
+                        rs.getBigDecimal(3)));
+        assertThat(stored).containsExactlyElementsOf(readings);
+        assertThat(jobCompletionListener.getDuplicatesCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should count rows dropped as duplicates from the affected row count")
+    void testCountsDuplicates() {
+        // Given: a row already in the table
+        var known = new TemperatureReading("LoadData", LocalDateTime.of(2024, 1, 1, 0, 0), new BigDecimal("10.0"));
+        writer.write(new Chunk<>(List.of(known)));
+
+        // When: loading it again together with a new row
+        writer.write(new Chunk<>(List.of(known,
+                new TemperatureReading("LoadData", LocalDateTime.of(2024, 1, 1, 0, 10), new BigDecimal("10.5")))));
+
+        // Then: only the new row is inserted and the known one counted as duplicate
+        assertThat(countRecords()).isEqualTo(2);
+        assertThat(jobCompletionListener.getDuplicatesCount()).isEqualTo(1);
+    }
+}
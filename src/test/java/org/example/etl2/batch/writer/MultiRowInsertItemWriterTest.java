@@ -0,0 +1,86 @@
+package org.example.etl2.batch.writer;
+
+import org.example.etl2.batch.BaseIntegrationTest;
+import org.example.etl2.batch.listener.JobCompletionListener;
+import org.example.etl2.model.TemperatureReading;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class MultiRowInsertItemWriterTest extends BaseIntegrationTest {
+
+    /** More rows than fit the 65,535 placeholders of one statement. */
+    private static final int ROWS = 25_000;
+
+    @Autowired
+    private StationDictionary stationDictionary;
+
+    @Autowired
+    private DuplicateReporter duplicateReporter;
+
+    @Autowired
+    private JobCompletionListener jobCompletionListener;
+
+    @BeforeEach
+    void setUp() {
+        clearDatabase();
+        jobCompletionListener.resetDuplicatesCount();
+    }
+
+    @Test
+    @DisplayName("Should split a chunk at the placeholder limit and insert every row")
+    void testSplitsAtPlaceholderLimit() {
+        // Given: a chunk needing 75,000 placeholders
+        JdbcTemplate template = spy(new JdbcTemplate(jdbcTemplate.getDataSource()));
+        var writer = new MultiRowInsertItemWriter(template, stationDictionary, duplicateReporter);
+
+        // When: writing it
+        writer.write(new Chunk<>(readings(ROWS)));
+
+        // Then: two statements inserted all rows
+        verify(template, times(2)).update(anyString(), any(PreparedStatementSetter.class));
+        assertThat(countRecords()).isEqualTo(ROWS);
+        assertThat(jobCompletionListener.getDuplicatesCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should count rows dropped as duplicates from the update counts")
+    void testCountsDuplicates() {
+        // Given: rows already in the table
+        var writer = new MultiRowInsertItemWriter(jdbcTemplate, stationDictionary, duplicateReporter);
+        writer.write(new Chunk<>(readings(100)));
+
+        // When: writing them again together with 50 new rows
+        writer.write(new Chunk<>(readings(150)));
+
+        // Then: the 100 known rows are counted as duplicates
+        assertThat(countRecords()).isEqualTo(150);
+        assertThat(jobCompletionListener.getDuplicatesCount()).isEqualTo(100);
+    }
+
+    private static List<TemperatureReading> readings(int count) {
+        List<TemperatureReading> readings = new ArrayList<>(count);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < count; i++) {
+            readings.add(new TemperatureReading("MultiRow-" + i % 10, start.plusMinutes(i / 10),
+                    BigDecimal.valueOf(i % 500 - 250, 1)));
+        }
+        return readings;
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.etl2.batch.writer;
+
+import org.example.etl2.model.TemperatureReading;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.infrastructure.item.Chunk;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionGroupingItemWriterTest {
+
+    private final List<Chunk<? extends TemperatureReading>> written = new ArrayList<>();
+    private final PartitionGroupingItemWriter writer = new PartitionGroupingItemWriter(written::add);
+
+    @Test
+    @DisplayName("Should write readings grouped by month, keeping their order within a month")
+    void testGroupsByMonth() throws Exception {
+        // Given: a chunk alternating between months
+        var chunk = Chunk.of(reading("A", 2024, 3), reading("B", 2024, 1), reading("C", 2024, 3),
+                reading("D", 2023, 12), reading("E", 2024, 1));
+
+        // When: writing the chunk
+        writer.write(chunk);
+
+        // Then: the delegate gets the readings in month order
+        assertThat(written.getFirst().getItems()).extracting(TemperatureReading::name)
+                .containsExactly("D", "B", "E", "A", "C");
+    }
+
+    @Test
+    @DisplayName("Should pass a chunk already in month order on unchanged")
+    void testKeepsGroupedChunk() throws Exception {
+        // Given: a chunk in month order
+        var chunk = Chunk.of(reading("A", 2024, 1), reading("B", 2024, 1), reading("C", 2024, 2));
+
+        // When: writing the chunk
+        writer.write(chunk);
+
+        // Then: the delegate gets the same chunk
+        assertThat(written.getFirst()).isSameAs(chunk);
+    }
+
+    private static TemperatureReading reading(String name, int year, int month) {
+        return new TemperatureReading(name, LocalDateTime.of(year, month, 15, 12, 0), new BigDecimal("1.0"));
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.etl2.batch.writer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RollupUpdaterTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    /** Rows bound to each upsert statement, keyed by rollup table. */
+    private final Map<String, List<List<Object>>> upserts = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            List<List<Object>> rows = upserts.computeIfAbsent(sql.substring(12, sql.indexOf(' ', 12)), key -> new ArrayList<>());
+            for (int i = 0; i < setter.getBatchSize(); i++) {
+                Object[] row = new Object[6];
+                PreparedStatement ps = mock(PreparedStatement.class, call -> {
+                    row[(int) call.getArgument(0) - 1] = call.getArgument(1);
+                    return null;
+                });
+                setter.setValues(ps, i);
+                rows.add(List.of(row));
+            }
+            return new int[setter.getBatchSize()];
+        });
+    }
+
+    @Test
+    @DisplayName("Should upsert min, max, sum and count per station and hour and per station and day")
+    void testAggregatesBuckets() {
+        var updater = new RollupUpdater(jdbcTemplate);
+
+        // Given: readings of two stations, the first spanning two hours
+        updater.add(2, LocalDateTime.of(2024, 3, 1, 10, 5), new BigDecimal("1.5"));
+        updater.add(1, LocalDateTime.of(2024, 3, 1, 11, 0), new BigDecimal("-4.0"));
+        updater.add(2, LocalDateTime.of(2024, 3, 1, 10, 55), new BigDecimal("-0.5"));
+        updater.add(2, LocalDateTime.of(2024, 3, 1, 11, 30), new BigDecimal("3.0"));
+
+        // When: flushing
+        updater.flush();
+
+        // Then: one row per bucket, ordered by station and period
+        assertThat(upserts.get("temperature_hourly")).containsExactly(
+                List.of(1, Timestamp.valueOf("2024-03-01 11:00:00"), decimal("-4.0"), decimal("-4.0"), decimal("-4.0"), 1),
+                List.of(2, Timestamp.valueOf("2024-03-01 10:00:00"), decimal("-0.5"), decimal("1.5"), decimal("1.0"), 2),
+                List.of(2, Timestamp.valueOf("2024-03-01 11:00:00"), decimal("3.0"), decimal("3.0"), decimal("3.0"), 1));
+        assertThat(upserts.get("temperature_daily")).containsExactly(
+                List.of(1, Date.valueOf(LocalDate.of(2024, 3, 1)), decimal("-4.0"), decimal("-4.0"), decimal("-4.0"), 1),
+                List.of(2, Date.valueOf(LocalDate.of(2024, 3, 1)), decimal("-0.5"), decimal("3.0"), decimal("4.0"), 3));
+    }
+
+    @Test
+    @DisplayName("Should start over after a flush and handle readings before 1970")
+    void testFlushClearsBuckets() {
+        var updater = new RollupUpdater(jdbcTemplate);
+        updater.add(1, LocalDateTime.of(2024, 3, 1, 10, 0), new BigDecimal("1.0"));
+        updater.flush();
+        upserts.clear();
+
+        // When: flushing readings added after the first flush
+        updater.add(1, LocalDateTime.of(1950, 6, 30, 23, 59, 59), new BigDecimal("2.25"));
+        updater.flush();
+
+        // Then: only they are upserted, rounded like DECIMAL(5,1)
+        assertThat(upserts.get("temperature_hourly")).containsExactly(
+                List.of(1, Timestamp.valueOf("1950-06-30 23:00:00"), decimal("2.3"), decimal("2.3"), decimal("2.3"), 1));
+        assertThat(upserts.get("temperature_daily")).containsExactly(
+                List.of(1, Date.valueOf(LocalDate.of(1950, 6, 30)), decimal("2.3"), decimal("2.3"), decimal("2.3"), 1));
+
+        // And: an empty flush sends nothing
+        upserts.clear();
+        updater.flush();
+        assertThat(upserts).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should round temperatures to tenths half away from zero")
+    void testTenths() {
+        assertThat(RollupUpdater.tenths(new BigDecimal("12.3"))).isEqualTo(123);
+        assertThat(RollupUpdater.tenths(new BigDecimal("-0.05"))).isEqualTo(-1);
+        assertThat(RollupUpdater.tenths(new BigDecimal("0.15"))).isEqualTo(2);
+        assertThat(RollupUpdater.tenths(new BigDecimal("-9999.9"))).isEqualTo(-99999);
+    }
+
+    private static BigDecimal decimal(String value) {
+        return new BigDecimal(value);
+    }
+}